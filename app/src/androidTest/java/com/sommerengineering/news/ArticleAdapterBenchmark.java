@@ -0,0 +1,178 @@
+package com.sommerengineering.news;
+
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.text.Html;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the time and allocations of binding a row, comparing the cached
+ * {@link ArticleAdapter.ArticleViewHolder} against the previous ListView
+ * getView() that looked up every View on each bind, and the UI thread time of
+ * setting the trail text through {@link TrailTextRenderer} against rendering
+ * its HTML in the bind.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleAdapterBenchmark {
+
+    private static final String LOG_TAG = ArticleAdapterBenchmark.class.getSimpleName();
+
+    private static final int WARMUP_BINDS = 500;
+    private static final int MEASURED_BINDS = 5000;
+
+    private Context mContext;
+    private FrameLayout mParent;
+    private List<Article> mArticles;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(), R.style.AppTheme);
+        mParent = new FrameLayout(mContext);
+        mArticles = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            mArticles.add(new Article("Baja surf report " + i, "<strong>Swell</strong> arriving on the coast " + i,
+                    i % 5 == 0 ? "" : "tim", i % 5 == 0 ? "" : "adams", "2018-10-06T12:00:00Z", "Travel",
+                    "https://www.theguardian.com/travel/" + i));
+        }
+    }
+
+    @Test
+    public void viewHolderBind_isCheaperThanGetView() {
+        final ArticleAdapter.ArticleViewHolder holder = new ArticleAdapter(null).onCreateViewHolder(mParent, 0);
+        final View listItemView = LayoutInflater.from(mContext).inflate(R.layout.list_item, mParent, false);
+
+        long[] viewHolder = measure(new Bind() {
+            @Override
+            public void bind(Article article) {
+                holder.bind(article);
+            }
+        });
+        long[] getView = measure(new Bind() {
+            @Override
+            public void bind(Article article) {
+                legacyGetView(listItemView, article);
+            }
+        });
+
+        Log.i(LOG_TAG, String.format("per bind: view holder %d ns/%d allocations, getView %d ns/%d allocations",
+                viewHolder[0], viewHolder[1], getView[0], getView[1]));
+        assertTrue("view holder bind should not allocate more than getView", viewHolder[1] <= getView[1]);
+    }
+
+    // returns {nanos, allocations} per bind
+    @SuppressWarnings("deprecation")
+    private long[] measure(Bind bind) {
+        for (int i = 0; i < WARMUP_BINDS; i++) {
+            bind.bind(mArticles.get(i % mArticles.size()));
+        }
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_BINDS; i++) {
+            bind.bind(mArticles.get(i % mArticles.size()));
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocations = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+        return new long[] {elapsed / MEASURED_BINDS, allocations / MEASURED_BINDS};
+    }
+
+    @Test
+    public void trailTextBind_keepsHtmlRenderingOffTheUiThread() throws InterruptedException {
+        final TextView textView = new TextView(mContext);
+        final TrailTextRenderer renderer = TrailTextRenderer.getInstance();
+        final long[][] results = new long[3][];
+
+        // before rendering finishes a row shows the plain text, afterwards the cached styled text
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                results[0] = measure(new Bind() {
+                    @Override
+                    public void bind(Article article) {
+                        textView.setText(TrailTextRenderer.plainText(article.getTrailText()));
+                    }
+                });
+                renderer.prefetch(mArticles);
+            }
+        });
+        for (Article article : mArticles) {
+            while (renderer.get(article) == null) {
+                Thread.sleep(5);
+                InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+            }
+        }
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                results[1] = measure(new Bind() {
+                    @Override
+                    public void bind(Article article) {
+                        renderer.bind(article, textView);
+                    }
+                });
+                results[2] = measure(new Bind() {
+                    @Override
+                    public void bind(Article article) {
+                        textView.setText(Html.fromHtml(article.getTrailText()));
+                    }
+                });
+            }
+        });
+
+        Log.i(LOG_TAG, String.format("UI thread per trail text bind: rendered %d ns/%d allocations, "
+                        + "plain fallback %d ns/%d allocations, Html.fromHtml %d ns/%d allocations",
+                results[1][0], results[1][1], results[0][0], results[0][1], results[2][0], results[2][1]));
+        assertTrue("a rendered bind should cost less than rendering in the bind", results[1][0] < results[2][0]);
+        assertTrue("a rendered bind should allocate less than rendering in the bind", results[1][1] < results[2][1]);
+    }
+
+    private interface Bind {
+        void bind(Article article);
+    }
+
+    // the previous ArrayAdapter.getView() body for a recycled row
+    private static void legacyGetView(View listItemView, Article currentArticle) {
+        TextView titleTextView = (TextView) listItemView.findViewById(R.id.title);
+        TextView trailTextView = (TextView) listItemView.findViewById(R.id.trail_text);
+        TextView authorNameTextView = (TextView) listItemView.findViewById(R.id.author_name);
+        TextView dateTextView = (TextView) listItemView.findViewById(R.id.date);
+        TextView sectionTextView = (TextView) listItemView.findViewById(R.id.section);
+        titleTextView.setText(currentArticle.getTitle());
+        sectionTextView.setText(currentArticle.getSection());
+        try {
+            String firstName = currentArticle.getFirstName();
+            String lastName = currentArticle.getLastName();
+            authorNameTextView.setText(firstName.substring(0, 1).toUpperCase() + firstName.substring(1)
+                    + " " + lastName.substring(0, 1).toUpperCase() + lastName.substring(1));
+        } catch (StringIndexOutOfBoundsException e) {
+            authorNameTextView.setVisibility(View.GONE);
+        }
+        trailTextView.setText(Html.fromHtml(currentArticle.getTrailText()));
+        try {
+            dateTextView.setText(new SimpleDateFormat("LLL d, yyyy").format(
+                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'").parse(currentArticle.getDate())));
+        } catch (ParseException e) {
+            dateTextView.setText(currentArticle.getDate());
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.sommerengineering.news;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures time to first content, from {@link MainActivity#onCreate} to the
+ * first frame drawn with articles, over repeated launches of the activity.
+ * A snapshot of a previous feed is written first, as it is after any earlier
+ * session, so the result does not depend on the network.
+ * For a cold start of the whole process, run
+ * {@code adb shell am force-stop com.sommerengineering.news} followed by
+ * {@code adb shell am start -W com.sommerengineering.news/.MainActivity}, then
+ * read the "First content" line in logcat, which also reports the time since process start.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String LOG_TAG = StartupBenchmark.class.getSimpleName();
+
+    private static final int LAUNCHES = 10;
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private Instrumentation mInstrumentation;
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        mInstrumentation = InstrumentationRegistry.getInstrumentation();
+        mContext = InstrumentationRegistry.getTargetContext();
+
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < FeedSnapshot.MAX_ARTICLES; i++) {
+            articles.add(new Article("Baja surf report " + i, "<strong>Swell</strong> arriving on the coast " + i,
+                    "tim", "adams", "2018-10-06T12:00:00Z", "Travel", "https://www.theguardian.com/travel/" + i));
+        }
+        File file = FeedSnapshot.getFile(mContext);
+        FeedSnapshot.write(file, articles);
+    }
+
+    @Test
+    public void timeToFirstContent() throws Exception {
+        Metrics.Histogram histogram = Metrics.get().histogram(Metrics.FIRST_CONTENT);
+        long before = histogram.getCount();
+
+        for (int i = 0; i < LAUNCHES; i++) {
+            Intent intent = new Intent(mContext, MainActivity.class)
+                    .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            Activity activity = mInstrumentation.startActivitySync(intent);
+
+            long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+            while (histogram.getCount() < before + i + 1 && SystemClock.uptimeMillis() < deadline) {
+                SystemClock.sleep(10);
+            }
+            assertEquals("first content was not drawn on launch " + i, before + i + 1, histogram.getCount());
+
+            activity.finish();
+            mInstrumentation.waitForIdleSync();
+        }
+
+        Log.i(LOG_TAG, "time to first content over " + LAUNCHES + " launches: " + histogram);
+    }
+
+}
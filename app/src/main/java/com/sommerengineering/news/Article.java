@@ -1,26 +1,56 @@
 package com.sommerengineering.news;
 
 // custom Article object holds metadata for an given news article
+// display values are computed once when the Article is created, never while binding a row,
+// except the styled trail text, which TrailTextRenderer renders only for the rows about to be shown
+// sections, author names and display values repeat across a feed, each distinct value is held once
+// and shared through the string pool, the publication date is kept as a primitive
 public class Article {
 
     // attributes
-    private String mTitle; // title
-    private String mTrailText; // body
-    private String mFirstName; // author first name
-    private String mLastName; // author last name
-    private String mDate; // publication date
-    private String mSection; // section classification name
-    private String mUrl; // url for specific USGS event page
-
-    // constructor
+    private final String mTitle; // title
+    private final String mTrailText; // body
+    private final String mFirstName; // author first name, shared
+    private final String mLastName; // author last name, shared
+    private final long mDateMillis; // publication time since the epoch, Long.MIN_VALUE if the date is not a timestamp
+    private final String mDateText; // the date as received if it is not a timestamp, otherwise null
+    private final String mSection; // section classification name, shared
+    private final String mUrl; // url for specific Guardian article page
+    private final String mThumbnail; // url for the thumbnail image, empty if there is none
+
+    // precomputed display values
+    private final String mDisplayAuthor; // capitalized full name, empty if there is no author, shared
+    private final String mDisplayDate; // simple date only, for example "Oct 6, 2018", shared
+
+    // constructor, the body is displayed as plain text
     public Article(String title, String trailText, String firstName, String lastName, String date, String section, String url) {
+        this(title, trailText, firstName, lastName, date, section, url, "");
+    }
+
+    // constructor with a thumbnail
+    public Article(String title, String trailText, String firstName, String lastName, String date, String section, String url, String thumbnail) {
+        this(title, trailText, firstName, lastName, ArticleFormatter.parseTimestamp(date), date,
+                section, url, thumbnail);
+    }
+
+    // constructor, the date is already a time since the epoch
+    public Article(String title, String trailText, String firstName, String lastName, long dateMillis, String section, String url, String thumbnail) {
+        this(title, trailText, firstName, lastName, dateMillis, null, section, url, thumbnail);
+    }
+
+    private Article(String title, String trailText, String firstName, String lastName, long dateMillis, String date, String section, String url, String thumbnail) {
         mTitle = title;
         mTrailText = trailText;
-        mFirstName = firstName;
-        mLastName = lastName;
-        mDate = date;
-        mSection = section;
+        mFirstName = firstName.intern();
+        mLastName = lastName.intern();
+        mDateMillis = dateMillis;
+        mDateText = (dateMillis != Long.MIN_VALUE) ? null : (date == null) ? "" : date;
+        mSection = section.intern();
         mUrl = url;
+        mThumbnail = thumbnail;
+        mDisplayAuthor = ArticleFormatter.formatAuthor(mFirstName, mLastName).intern();
+        mDisplayDate = ((mDateText == null) ? ArticleFormatter.formatDate(dateMillis)
+                : ArticleFormatter.formatDate(mDateText)).intern();
     }
 
     // getters
@@ -36,8 +66,12 @@ public class Article {
     public String getLastName() {
         return mLastName;
     }
+    public long getDateMillis() {
+        return mDateMillis;
+    }
+    // the date in the format of the API, for example "2018-10-06T12:00:00Z", built on each call
     public String getDate() {
-        return mDate;
+        return (mDateText != null) ? mDateText : ArticleFormatter.formatTimestamp(mDateMillis);
     }
     public String getSection() {
         return mSection;
@@ -45,5 +79,14 @@ public class Article {
     public String getUrl() {
         return mUrl;
     }
+    public String getThumbnail() {
+        return mThumbnail;
+    }
+    public String getDisplayAuthor() {
+        return mDisplayAuthor;
+    }
+    public String getDisplayDate() {
+        return mDisplayDate;
+    }
 
 }
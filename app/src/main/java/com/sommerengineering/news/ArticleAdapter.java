@@ -1,120 +1,164 @@
 package com.sommerengineering.news;
 
-import android.content.Context;
-import android.text.Html;
-import android.util.Log;
+import android.support.v7.recyclerview.extensions.ListAdapter;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
+import java.util.List;
 
-public class ArticleAdapter extends ArrayAdapter<Article> {
+// binds Article objects to list_item rows in the RecyclerView
+// new lists are diffed on a background thread by ListAdapter so a refresh only rebinds rows that changed
+// trail texts are rendered from HTML on a background thread a few rows ahead of the row being bound
+public class ArticleAdapter extends ListAdapter<Article, ArticleAdapter.ArticleViewHolder> {
 
-    // simple tag for log messages
-    private static final String LOG_TAG = ArrayAdapter.class.getSimpleName();
+    // rows are identified by url, their contents by every displayed attribute
+    private static final DiffUtil.ItemCallback<Article> DIFF_CALLBACK = new DiffUtil.ItemCallback<Article>() {
 
-    // constructor
-    public ArticleAdapter(Context context, ArrayList<Article> articles) {
-
-        // call superclass ArrayAdapter constructor
-        // second argument for populating a single TextView (the default for ArrayAdapter)
-        // since a custom layout is inflated in getView() this second argument is arbitrary, for initialization only
-        super(context, 0, articles);
-
-    }
-
-    // must override to inflate anything other than the default single TextView expected by ArrayAdapter
-    // parent is the ListView in earthquake_activity
-    @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-
-        // rename input argument for clarity
-        View listItemView = convertView;
-
-        // if the passed view does not exist (therefore it is not being recycled) then inflate it from list_item
-        if(listItemView  == null) {
-            listItemView  = LayoutInflater.from(getContext()).inflate(
-                    R.layout.list_item, parent, false);
+        @Override
+        public boolean areItemsTheSame(Article oldArticle, Article newArticle) {
+            return oldArticle.getUrl().equals(newArticle.getUrl());
         }
 
-        // get the Article object at this position in the ArrayList
-        Article currentArticle = getItem(position);
+        @Override
+        public boolean areContentsTheSame(Article oldArticle, Article newArticle) {
+            return oldArticle.getTitle().equals(newArticle.getTitle())
+                    && oldArticle.getTrailText().equals(newArticle.getTrailText())
+                    && oldArticle.getFirstName().equals(newArticle.getFirstName())
+                    && oldArticle.getLastName().equals(newArticle.getLastName())
+                    && oldArticle.getDateMillis() == newArticle.getDateMillis()
+                    && oldArticle.getDisplayDate().equals(newArticle.getDisplayDate())
+                    && oldArticle.getSection().equals(newArticle.getSection())
+                    && oldArticle.getThumbnail().equals(newArticle.getThumbnail());
+        }
+    };
 
-        // get View references from list_item
-        TextView titleTextView = (TextView) listItemView.findViewById(R.id.title);
-        TextView trailTextView = (TextView) listItemView.findViewById(R.id.trail_text);
-        TextView authorNameTextView = (TextView) listItemView.findViewById(R.id.author_name);
-        TextView dateTextView = (TextView) listItemView.findViewById(R.id.date);
-        TextView sectionTextView = (TextView) listItemView.findViewById(R.id.section);
+    // rows rendered ahead of a new list and of the row being bound
+    private static final int PREFETCH_COUNT = 20;
+    private static final int PREFETCH_DISTANCE = 10;
 
-        // get attributes from the current Article and set to Views
-        titleTextView.setText(currentArticle.getTitle());
-        sectionTextView.setText(currentArticle.getSection());
+    // receives clicks on a row
+    public interface OnArticleClickListener {
+        void onArticleClick(Article article);
+    }
 
-        // the author name can be lowercase, or not exist at all in the JSON metadata
-        try {
+    // initialize state variable for the click listener
+    private final OnArticleClickListener mListener;
 
-            // ensure that first name starts with a capital letter
-            String firstName = currentArticle.getFirstName();
-            String capitalizedFirstName = firstName.substring(0,1).toUpperCase() + firstName.substring(1);
+    // duration of every bind, kept to skip the registry lookup per row
+    private final Metrics.Histogram mBindTimes = Metrics.get().histogram(Metrics.BIND);
 
+    private final TrailTextRenderer mRenderer = TrailTextRenderer.getInstance();
 
-            // ensure that last name starts with a capital letter
-            String lastName = currentArticle.getLastName();
-            String capitalizedLastName = lastName.substring(0,1).toUpperCase() + lastName.substring(1);
+    // constructor
+    public ArticleAdapter(OnArticleClickListener listener) {
 
+        // call superclass ListAdapter constructor with the callback used to diff lists
+        super(DIFF_CALLBACK);
+        mListener = listener;
 
-            String fullName = capitalizedFirstName + " " + capitalizedLastName;
-            authorNameTextView.setText(fullName);
+    }
 
+    // the first screens of a new list are rendered while it is being diffed
+    @Override
+    public void submitList(List<Article> list) {
+        if (list != null) {
+            mRenderer.prefetch(list.subList(0, Math.min(list.size(), PREFETCH_COUNT)));
         }
+        super.submitList(list);
+    }
 
-        // this error is thrown when there is no author name in the JSON metadata
-        catch (StringIndexOutOfBoundsException e) {
-
-            // hide the TextView
-            authorNameTextView.setVisibility(View.GONE);
+    // only called when there is no recycled row to reuse, inflates list_item and caches its views
+    @Override
+    public ArticleViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View listItemView = LayoutInflater.from(parent.getContext()).inflate(
+                R.layout.list_item, parent, false);
+        return new ArticleViewHolder(listItemView);
+    }
 
+    @Override
+    public void onBindViewHolder(ArticleViewHolder holder, int position) {
+        Metrics.Span span = mBindTimes.start();
+        holder.bind(getItem(position));
+        if (position + PREFETCH_DISTANCE < getItemCount()) {
+            mRenderer.prefetch(getItem(position + PREFETCH_DISTANCE));
         }
+        span.end();
+    }
 
-        // trailText string contains HTML tags
-        trailTextView.setText(Html.fromHtml(currentArticle.getTrailText()));
-
-        // convert timestamp to simple date with helper method
-        dateTextView.setText(formatDate(currentArticle.getDate()));
-
-        // return the inflated view to fragment
-        return listItemView;
-
+    // a row scrolled off screen no longer needs its thumbnail or its rendered trail text
+    @Override
+    public void onViewRecycled(ArticleViewHolder holder) {
+        ImageLoader.getInstance(holder.itemView.getContext()).cancel(holder.mThumbnailImageView);
+        mRenderer.cancel(holder.mTrailTextView);
     }
 
-    // coverts datetime timestamp to simple date only format
-    private String formatDate(String timestamp) {
+    // holds the View references of one row so findViewById runs once per inflated row, not once per bind
+    public class ArticleViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
 
-        // expected datetime format
-        String expectedPattern = "yyyy-MM-dd'T'HH:mm:ss'Z'";
-        SimpleDateFormat expectedFormatter = new SimpleDateFormat(expectedPattern);
+        // get View references from list_item
+        private final TextView mTitleTextView;
+        private final TextView mTrailTextView;
+        private final TextView mAuthorNameTextView;
+        private final TextView mDateTextView;
+        private final TextView mSectionTextView;
+        private final ImageView mThumbnailImageView;
+
+        // the Article currently shown in this row
+        private Article mArticle;
+
+        public ArticleViewHolder(View listItemView) {
+            super(listItemView);
+            mTitleTextView = (TextView) listItemView.findViewById(R.id.title);
+            mTrailTextView = (TextView) listItemView.findViewById(R.id.trail_text);
+            mAuthorNameTextView = (TextView) listItemView.findViewById(R.id.author_name);
+            mDateTextView = (TextView) listItemView.findViewById(R.id.date);
+            mSectionTextView = (TextView) listItemView.findViewById(R.id.section);
+            mThumbnailImageView = (ImageView) listItemView.findViewById(R.id.thumbnail);
+            listItemView.setOnClickListener(this);
+        }
 
-        // change to simpler date only
-        String simplePattern = "LLL d, yyyy";
-        SimpleDateFormat simpleFormatter = new SimpleDateFormat(simplePattern);
+        // get attributes from the current Article and set to Views
+        void bind(Article currentArticle) {
+
+            mArticle = currentArticle;
+            mTitleTextView.setText(currentArticle.getTitle());
+            mSectionTextView.setText(currentArticle.getSection());
+
+            // display values are precomputed on the loader thread, binding only sets them
+            // the trail text is rendered in the background, plain text is shown until it is ready
+            mRenderer.bind(currentArticle, mTrailTextView);
+            mDateTextView.setText(currentArticle.getDisplayDate());
+
+            // hide the TextView when there is no author name in the JSON metadata
+            // a recycled row may have hidden the TextView for an earlier article
+            String author = currentArticle.getDisplayAuthor();
+            mAuthorNameTextView.setText(author);
+            mAuthorNameTextView.setVisibility(author.isEmpty() ? View.GONE : View.VISIBLE);
+
+            // thumbnails are loaded asynchronously, a recycled row drops the previous request
+            ImageLoader imageLoader = ImageLoader.getInstance(itemView.getContext());
+            String thumbnail = currentArticle.getThumbnail();
+            if (thumbnail.isEmpty()) {
+                imageLoader.cancel(mThumbnailImageView);
+                mThumbnailImageView.setVisibility(View.GONE);
+            } else {
+                mThumbnailImageView.setVisibility(View.VISIBLE);
+                imageLoader.load(thumbnail, mThumbnailImageView);
+            }
 
-        // unexpected timestamp format will cause parsing error
-        try {
-            Date date = expectedFormatter.parse(timestamp);
-            String simpleDate= simpleFormatter.format(date);
-            return simpleDate;
-        }
-        catch (ParseException e) {
-            Log.e(LOG_TAG, "Error formatting timestamp.", e);
-            return timestamp;
         }
 
+        // click opens up article source page for more detailed information
+        @Override
+        public void onClick(View view) {
+            if (mArticle != null && mListener != null) {
+                mListener.onArticleClick(mArticle);
+            }
+        }
     }
 
 }
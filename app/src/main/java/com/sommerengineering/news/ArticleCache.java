@@ -0,0 +1,276 @@
+package com.sommerengineering.news;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// disk-backed cache of response bodies, one file per request url
+// each file holds a small header (url, validators, fetch time) followed by the body, which is up to the caller:
+// encoded articles for Guardian responses, image bytes for thumbnails
+// least recently used files are evicted when the directory grows beyond the size bound
+public class ArticleCache {
+
+    // file extensions for committed entries and entries still being written
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // state variables defined in the constructor
+    private final File mDirectory;
+    private final long mMaxBytes;
+    private final long mTtlMillis;
+
+    public ArticleCache(File directory, long maxBytes, long ttlMillis) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+        mTtlMillis = ttlMillis;
+    }
+
+    // returns the cached entry for the url, or null if there is none
+    public synchronized Entry get(String url) {
+
+        File file = fileFor(url);
+        if (!file.exists()) {
+            return null;
+        }
+
+        // only the header is read here, the body is streamed later by the parser
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            String cachedUrl = in.readUTF();
+            String eTag = in.readUTF();
+            String lastModified = in.readUTF();
+            long fetchedAt = in.readLong();
+
+            // guard against a hash collision between two urls
+            if (!cachedUrl.equals(url)) {
+                return null;
+            }
+
+            // file modification time tracks recency of use for LRU eviction
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry(file, eTag, lastModified, fetchedAt,
+                    System.currentTimeMillis() - fetchedAt > mTtlMillis);
+
+        } catch (IOException e) {
+
+            // a truncated or corrupt entry is discarded
+            file.delete();
+            return null;
+
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    // restart the time-to-live of an entry after the server confirmed it is unchanged (HTTP 304)
+    public synchronized void markValidated(String url, Entry entry) throws IOException {
+
+        Editor editor = edit(url, entry.getETag(), entry.getLastModified());
+        InputStream body = entry.openBody();
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = body.read(buffer)) != -1) {
+                editor.getOutputStream().write(buffer, 0, count);
+            }
+            editor.commit();
+        } finally {
+            closeQuietly(body);
+            editor.abort();
+        }
+    }
+
+    // begin writing a new entry, the body is written to the editor's stream while it is being parsed
+    public Editor edit(String url, String eTag, String lastModified) throws IOException {
+
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            throw new IOException("Unable to create cache directory " + mDirectory);
+        }
+
+        File file = fileFor(url);
+        File temp = new File(mDirectory, file.getName() + TEMP_SUFFIX + Thread.currentThread().getId());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        out.writeUTF(url);
+        out.writeUTF(eTag == null ? "" : eTag);
+        out.writeUTF(lastModified == null ? "" : lastModified);
+        out.writeLong(System.currentTimeMillis());
+        return new Editor(file, temp, out);
+    }
+
+    // total bytes of all committed entries
+    public synchronized long size() {
+        long size = 0;
+        for (File file : entries()) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    // delete least recently used entries until the cache fits within its size bound
+    private synchronized void trimToSize() {
+
+        File[] files = entries();
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+
+        // oldest modification time first
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+
+        for (int i = 0; i < files.length && size > mMaxBytes; i++) {
+            size -= files[i].length();
+            files[i].delete();
+        }
+    }
+
+    private File[] entries() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(ENTRY_SUFFIX)) {
+                files[count++] = file;
+            }
+        }
+        return Arrays.copyOf(files, count);
+    }
+
+    // file names are the SHA-1 of the url, urls contain characters that are not valid in file names
+    private File fileFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(Charset.forName("UTF-8")));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return new File(mDirectory, name.append(ENTRY_SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // a committed cache entry, the body is only read when it is needed
+    public static class Entry {
+
+        private final File mFile;
+        private final String mETag;
+        private final String mLastModified;
+        private final long mFetchedAt;
+        private final boolean mExpired;
+
+        private Entry(File file, String eTag, String lastModified, long fetchedAt, boolean expired) {
+            mFile = file;
+            mETag = eTag;
+            mLastModified = lastModified;
+            mFetchedAt = fetchedAt;
+            mExpired = expired;
+        }
+
+        // validators are empty strings if the server did not send them
+        public String getETag() {
+            return mETag;
+        }
+        public String getLastModified() {
+            return mLastModified;
+        }
+        public long getFetchedAt() {
+            return mFetchedAt;
+        }
+
+        // true once the entry is older than the time-to-live and must be revalidated before use
+        public boolean isExpired() {
+            return mExpired;
+        }
+
+        // returns a stream positioned at the start of the cached response body
+        public InputStream openBody() throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            try {
+                in.readUTF();
+                in.readUTF();
+                in.readUTF();
+                in.readLong();
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            return in;
+        }
+    }
+
+    // writes a new entry to a temporary file that replaces the committed entry only on commit()
+    public class Editor {
+
+        private final File mFile;
+        private final File mTemp;
+        private final OutputStream mOut;
+        private boolean mDone;
+
+        private Editor(File file, File temp, OutputStream out) {
+            mFile = file;
+            mTemp = temp;
+            mOut = out;
+        }
+
+        public OutputStream getOutputStream() {
+            return mOut;
+        }
+
+        // publish the entry and evict older entries if the cache is now too large
+        public void commit() throws IOException {
+            if (mDone) {
+                return;
+            }
+            mDone = true;
+            mOut.close();
+            synchronized (ArticleCache.this) {
+                if (!mTemp.renameTo(mFile)) {
+                    mTemp.delete();
+                    throw new IOException("Unable to commit cache entry " + mFile);
+                }
+                trimToSize();
+            }
+        }
+
+        // discard the entry, safe to call after commit()
+        public void abort() {
+            if (mDone) {
+                return;
+            }
+            mDone = true;
+            closeQuietly(mOut);
+            mTemp.delete();
+        }
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.sommerengineering.news;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// compact binary form of a list of articles, used wherever parsed articles are kept on disk or in a Bundle
+// so restoring them never parses JSON text again
+//
+//   header   int magic, varint version, varint article count
+//   article  varint length of the record, then its fields in order:
+//            url, title, trail text, thumbnail  length-prefixed UTF-8
+//            section, first name, last name     reference into the string table of the stream
+//            date                               varint 0 and zigzag varint epoch millis, or varint 1 and a string
+//
+// a reference is 0 followed by a new string, which joins the table, or the 1-based index of an earlier one
+// every record is length-prefixed, so a reader skips fields added by a later version and gives fields a
+// record lacks their empty default, fields added later must be plain strings and never join the table
+final class ArticleCodec {
+
+    // first bytes of an encoded list, and the version of the record layout
+    private static final int MAGIC = 0x41525443;
+    private static final int VERSION = 1;
+
+    // kinds of date field
+    private static final int DATE_MILLIS = 0;
+    private static final int DATE_TEXT = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private ArticleCodec() {}
+
+    static byte[] encode(List<Article> articles) {
+        Output out = new Output(64 + articles.size() * 256);
+        out.writeInt(MAGIC);
+        out.writeVarint(VERSION);
+        out.writeVarint(articles.size());
+
+        Map<String, Integer> table = new HashMap<>();
+        Output record = new Output(512);
+        for (Article article : articles) {
+            record.reset();
+            record.writeString(article.getUrl());
+            record.writeString(article.getTitle());
+            record.writeString(article.getTrailText());
+            record.writeString(article.getThumbnail());
+            record.writeReference(article.getSection(), table);
+            record.writeReference(article.getFirstName(), table);
+            record.writeReference(article.getLastName(), table);
+            long millis = article.getDateMillis();
+            if (millis != Long.MIN_VALUE) {
+                record.writeVarint(DATE_MILLIS);
+                record.writeVarlong((millis << 1) ^ (millis >> 63));
+            } else {
+                record.writeVarint(DATE_TEXT);
+                record.writeString(article.getDate());
+            }
+            out.writeVarint(record.size());
+            out.write(record);
+        }
+        return out.toByteArray();
+    }
+
+    // throws IOException if the bytes are not a complete encoded list
+    static List<Article> decode(byte[] bytes) throws IOException {
+        Input in = new Input(bytes);
+        if (bytes.length < 4 || readInt(bytes, 0) != MAGIC) {
+            throw new IOException("Not an encoded article list");
+        }
+        in.mPosition = 4;
+        in.readVarint();
+        int count = in.readVarint();
+
+        List<String> table = new ArrayList<>();
+        List<Article> articles = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            int length = in.readVarint();
+            int end = in.mPosition + length;
+            if (length < 0 || end > bytes.length) {
+                throw new IOException("Truncated article record");
+            }
+            in.mLimit = end;
+            String url = in.readString();
+            String title = in.readString();
+            String trailText = in.readString();
+            String thumbnail = in.readString();
+            String section = in.readReference(table);
+            String firstName = in.readReference(table);
+            String lastName = in.readReference(table);
+            if (in.hasMore() && in.readVarint() == DATE_MILLIS) {
+                articles.add(new Article(title, trailText, firstName, lastName,
+                        zigzag(in.readVarlong()), section, url, thumbnail));
+            } else {
+                articles.add(new Article(title, trailText, firstName, lastName,
+                        in.readString(), section, url, thumbnail));
+            }
+
+            // fields of a later version are skipped
+            in.mPosition = end;
+            in.mLimit = bytes.length;
+        }
+        return articles;
+    }
+
+    private static long zigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readInt(byte[] bytes, int position) {
+        return (bytes[position] & 0xff) << 24 | (bytes[position + 1] & 0xff) << 16
+                | (bytes[position + 2] & 0xff) << 8 | (bytes[position + 3] & 0xff);
+    }
+
+    // growable byte buffer with the writes of the format
+    private static class Output extends ByteArrayOutputStream {
+
+        Output(int size) {
+            super(size);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xffffffffL);
+        }
+
+        void writeVarlong(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            if (value.isEmpty()) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(UTF_8);
+            writeVarint(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        void writeReference(String value, Map<String, Integer> table) {
+            Integer index = table.get(value);
+            if (index != null) {
+                writeVarint(index);
+            } else {
+                writeVarint(0);
+                writeString(value);
+                table.put(value, table.size() + 1);
+            }
+        }
+
+        void write(Output other) {
+            write(other.buf, 0, other.count);
+        }
+    }
+
+    // cursor over the encoded bytes, reads past the end of the current record return empty values
+    private static class Input {
+
+        private final byte[] mBytes;
+        private int mPosition;
+        private int mLimit;
+
+        Input(byte[] bytes) {
+            mBytes = bytes;
+            mLimit = bytes.length;
+        }
+
+        boolean hasMore() {
+            return mPosition < mLimit;
+        }
+
+        int readVarint() throws IOException {
+            return (int) readVarlong();
+        }
+
+        long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (mPosition >= mLimit) {
+                    throw new IOException("Truncated varint");
+                }
+                byte b = mBytes[mPosition++];
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        String readString() throws IOException {
+            if (!hasMore()) {
+                return "";
+            }
+            int length = readVarint();
+            if (length == 0) {
+                return "";
+            }
+            if (length < 0 || mPosition + length > mLimit) {
+                throw new IOException("Truncated string");
+            }
+            String value = new String(mBytes, mPosition, length, UTF_8);
+            mPosition += length;
+            return value;
+        }
+
+        // strings of the table are shared by every article that refers to them
+        String readReference(List<String> table) throws IOException {
+            if (!hasMore()) {
+                return "";
+            }
+            int index = readVarint();
+            if (index == 0) {
+                String value = readString();
+                table.add(value);
+                return value;
+            }
+            if (index < 0 || index > table.size()) {
+                throw new IOException("Unknown string reference " + index);
+            }
+            return table.get(index - 1);
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.sommerengineering.news;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// helper methods that turn raw Guardian metadata into display strings
+// called once per article on the loader thread so binding a row only sets precomputed values
+public final class ArticleFormatter {
+
+    // SimpleDateFormat is not thread-safe, each thread reuses its own pair of formatters
+    private static final ThreadLocal<SimpleDateFormat> TIMESTAMP_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+
+            // expected datetime format
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        }
+    };
+    private static final ThreadLocal<SimpleDateFormat> DISPLAY_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+
+            // change to simpler date only
+            return new SimpleDateFormat("LLL d, yyyy");
+        }
+    };
+
+    // the same display format for a time since the epoch, in UTC which is the zone of the API's timestamps
+    private static final ThreadLocal<SimpleDateFormat> UTC_DISPLAY_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat("LLL d, yyyy");
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format;
+        }
+    };
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private ArticleFormatter() {}
+
+    // coverts datetime timestamp to simple date only format, for example "Oct 6, 2018"
+    public static String formatDate(String timestamp) {
+
+        // unexpected timestamp format will cause parsing error, the raw timestamp is shown instead
+        try {
+            Date date = TIMESTAMP_FORMAT.get().parse(timestamp);
+            return DISPLAY_DATE_FORMAT.get().format(date);
+        } catch (ParseException e) {
+            return timestamp;
+        }
+    }
+
+    // the display date of a publication time, the calendar day the timestamp states
+    public static String formatDate(long millis) {
+        return UTC_DISPLAY_DATE_FORMAT.get().format(new Date(millis));
+    }
+
+    // milliseconds since the epoch of a timestamp exactly in the format "2018-10-06T12:00:00Z"
+    // returns Long.MIN_VALUE for any other text, so a timestamp that parses always formats back unchanged
+    public static long parseTimestamp(String timestamp) {
+        if (timestamp.length() != 20 || timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-'
+                || timestamp.charAt(10) != 'T' || timestamp.charAt(13) != ':' || timestamp.charAt(16) != ':'
+                || timestamp.charAt(19) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(timestamp, 0, 4);
+        int month = digits(timestamp, 5, 2);
+        int day = digits(timestamp, 8, 2);
+        int hour = digits(timestamp, 11, 2);
+        int minute = digits(timestamp, 14, 2);
+        int second = digits(timestamp, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        long days = daysFromCivil(year, month, day);
+        return ((days * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+    }
+
+    // the inverse of parseTimestamp() for whole seconds in the years 0 to 9999
+    public static String formatTimestamp(long millis) {
+        long seconds = floorDiv(millis, 1000L);
+        long days = floorDiv(seconds, 86400L);
+        int secondOfDay = (int) (seconds - days * 86400L);
+
+        // civil date from days since the epoch, in the proleptic Gregorian calendar
+        long z = days + 719468;
+        long era = floorDiv(z, 146097L);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] chars = new char[20];
+        putDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        putDigits(chars, 5, month, 2);
+        chars[7] = '-';
+        putDigits(chars, 8, day, 2);
+        chars[10] = 'T';
+        putDigits(chars, 11, secondOfDay / 3600, 2);
+        chars[13] = ':';
+        putDigits(chars, 14, secondOfDay / 60 % 60, 2);
+        chars[16] = ':';
+        putDigits(chars, 17, secondOfDay % 60, 2);
+        chars[19] = 'Z';
+        return new String(chars);
+    }
+
+    // the author name can be lowercase, or not exist at all in the JSON metadata
+    // returns the capitalized full name, or an empty string if there is no author
+    public static String formatAuthor(String firstName, String lastName) {
+
+        StringBuilder fullName = new StringBuilder(firstName.length() + lastName.length() + 1);
+        appendCapitalized(fullName, firstName);
+        if (fullName.length() > 0 && !lastName.isEmpty()) {
+            fullName.append(' ');
+        }
+        appendCapitalized(fullName, lastName);
+        return fullName.toString();
+    }
+
+    // returns -1 if any of the characters is not a digit
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void putDigits(char[] chars, int start, int value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // division rounded towards negative infinity, for dates before the epoch
+    private static long floorDiv(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        return (dividend % divisor < 0) ? quotient - 1 : quotient;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    // days since the epoch of a civil date, in the proleptic Gregorian calendar
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = (month <= 2) ? year - 1 : year;
+        long era = floorDiv(y, 400L);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    // ensure that a name starts with a capital letter
+    private static void appendCapitalized(StringBuilder builder, String name) {
+        if (!name.isEmpty()) {
+            builder.append(Character.toUpperCase(name.charAt(0))).append(name, 1, name.length());
+        }
+    }
+
+}
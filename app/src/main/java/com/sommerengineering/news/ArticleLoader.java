@@ -1,47 +1,726 @@
 package com.sommerengineering.news;
 
-import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.content.Loader;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-// loads a list of news article metadata using a background AsyncTask to perform a network URL request
-public class ArticleLoader extends AsyncTaskLoader<List<Article>> {
+// loads a list of news article metadata in background passes of explicit stages:
+// build url -> fetch (the HTTP request, its JSON parsed straight off the socket) -> post-process -> deliver
+// passes run on a dedicated executor and can be cancelled, which closes their sockets and drops their result
+// each followed topic has its own url, the topics are requested concurrently and merged into one feed
+// articles are requested one small page at a time, every delivered result contains all pages loaded so far
+// and the outcome of the latest requests, so a failure is reported instead of showing as an empty list
+public class ArticleLoader extends Loader<FeedResult> {
 
     // simple tag for log messages
     private static final String LOG_TAG = ArticleLoader.class.getSimpleName();
 
-    // initialize state variable for url String
-    private String mUrl;
+    // responses younger than the time-to-live are used without contacting the server
+    private static final long CACHE_TTL_MILLIS = 5 * 60 * 1000;
 
-    public ArticleLoader(Context context, String url) {
+    // least recently used responses are evicted beyond this size
+    private static final long CACHE_MAX_BYTES = 4 * 1024 * 1024;
 
-        // inherit loader initialization configuration from superclass AsyncTaskLoader
+    // parsed article lists kept in memory for recently used queries, one entry per page
+    private static final int MEMORY_CACHE_MAX_ENTRIES = 16;
+
+    // the local store keeps the newest articles up to this count
+    private static final int STORE_MAX_ARTICLES = 1000;
+
+    // a refresh follows at most this many pages of new articles per topic before reloading the feed instead
+    private static final int MAX_DELTA_PAGES = 5;
+
+    // topics beyond this many are queued behind the first requests rather than opening more connections
+    private static final int FAN_OUT_THREAD_COUNT = 4;
+
+    // background passes of all loaders, a pass mostly waits on its topic requests
+    private static final int PIPELINE_THREAD_COUNT = 2;
+
+    // edits to the followed topics are applied once they have stopped for this long
+    private static final long SETTINGS_DEBOUNCE_MILLIS = 500;
+
+    // number of articles requested per page, small so the first page paints quickly
+    public static final int PAGE_SIZE = 10;
+
+    // single disk and memory caches, local store and request threads shared by all loaders in the process
+    private static ArticleCache sCache;
+    private static ArticleMemoryCache sMemoryCache;
+    private static ArticleStore sStore;
+    private static ExecutorService sExecutor;
+    private static ExecutorService sPipelineExecutor;
+
+    // initialize state variable for the url String of each topic, the page parameter is appended per request
+    // null until the settings are read by the first background pass
+    private List<String> mUrls;
+
+    // the settings the feed was loaded with, written by the background passes
+    private volatile FeedSettings mSettings;
+
+    // settings changed since, applied by the next pass once due, main thread only
+    private FeedSettings mPendingSettings;
+    private boolean mSettingsDue;
+
+    // the article fields requested by the urls, which drive the parser
+    private FieldProjection mProjection;
+
+    // date order of the feed, answered by the local store, or null for the relevance order of the server
+    private ArticleStore.Order mOrder;
+
+    // the feeds of the local store that belong to the topics
+    private final Set<String> mFeeds = new HashSet<>();
+
+    // pages are loaded back to back until this many articles are shown, after that only on scroll
+    // this and the progress of the feed below are written by the background passes and read on the main thread
+    private volatile int mInitialCount;
+
+    // pages of articles received so far for each topic url, page n is at index n - 1
+    private final Map<String, List<List<Article>>> mTopicPages = new LinkedHashMap<>();
+
+    // articles published since the topic's pages were loaded, newest first, found by refresh()
+    private final Map<String, List<Article>> mTopicDeltas = new LinkedHashMap<>();
+
+    // topics whose last page has been received, there is nothing more to request for them
+    private final Set<String> mFinishedTopics = new HashSet<>();
+
+    // number of pages loaded for the feed, a page is loaded for every unfinished topic at once
+    private volatile int mPageCount;
+
+    // the page to load next, or the page being revalidated
+    private volatile int mPage = 1;
+
+    // set once every topic is finished
+    private volatile boolean mLastPageReached;
+
+    // set from startLoad() until the result is delivered or the pass is cancelled
+    private boolean mLoading;
+
+    // the pass in progress and its cancellation, null when idle, main thread only
+    private Future<?> mTask;
+    private Cancellation mCancellation;
+
+    // the cancellation of the pass running in the background, read by the request threads
+    private volatile Cancellation mPass;
+
+    // a cancelled pass may still be unwinding when the next one starts, the passes of a loader never overlap
+    private final Object mPassLock = new Object();
+
+    // set for the background pass that requests only articles newer than those held
+    // cleared on the main thread while a cancelled pass may still be reading it
+    private volatile boolean mRefreshing;
+
+    // set when stale cached articles were delivered and the network result should follow
+    // written by the request threads, any topic served stale triggers a second pass
+    private volatile boolean mRevalidate;
+
+    // set for the background pass that refreshes stale articles, which skips both caches
+    private volatile boolean mRevalidating;
+
+    // the last delivered result, redelivered when the activity returns
+    private FeedResult mResult;
+
+    // merged results of the topics that have already answered are posted before the slower ones finish
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    public ArticleLoader(Context context, FieldProjection projection) {
+
+        // inherit loader initialization configuration from superclass Loader
         super(context);
+        mProjection = projection;
+    }
+
+    // build url stage, the followed topics, their order and the number of articles to show come from the preferences
+    // they are read on the first background pass so the preferences file is never loaded on the main thread
+    // the span covers reading the preferences and building the topic urls from them
+    private void readSettings() {
+        Metrics.Span span = Metrics.get().start(Metrics.LOADER_CREATE);
+        setTopics(FeedSettings.read(getContext()));
+        span.end();
+    }
+
+    // start the feed over with the topics of the settings, the pages of earlier topics are dropped
+    private void setTopics(FeedSettings settings) {
+        mSettings = settings;
+
+        // this loader has one designated url address per topic
+        mUrls = settings.getTopicUrls();
+        mOrder = settings.getOrder();
+        mInitialCount = settings.getInitialCount();
+        mTopicPages.clear();
+        mTopicDeltas.clear();
+        mFeeds.clear();
+        mFinishedTopics.clear();
+        for (String url : mUrls) {
+            mTopicPages.put(url, new ArrayList<List<Article>>());
+            mTopicDeltas.put(url, new ArrayList<Article>());
+            mFeeds.add(feedOf(url));
+        }
+        mPageCount = 0;
+        mPage = 1;
+        mLastPageReached = false;
+    }
+
+    // a new order or count is applied to the articles already loaded without any request,
+    // deliverResult() then loads only the pages still missing for a larger count, new topics start over
+    private FeedResult applySettings(FeedSettings settings) {
+        if (!settings.getTopicUrls().equals(mUrls) || mPageCount == 0) {
+            setTopics(settings);
+            return loadPageInBackground(1);
+        }
+        mSettings = settings;
+        mOrder = settings.getOrder();
+        mInitialCount = settings.getInitialCount();
+        return FeedResult.ok(currentFeed());
+    }
 
-        // this loader has only one designated url address
-        mUrl = url;
+    // main thread, called when a feed preference changes, also while the activity is stopped
+    // a new order or count is applied at once, edits to the topics only once they have settled
+    public void onSettingsChanged(FeedSettings settings) {
+        FeedSettings applied = mSettings;
+        mPendingSettings = settings;
+        mMainHandler.removeCallbacks(mApplySettings);
+        if (applied != null && applied.getOrder() == settings.getOrder()
+                && !applied.getTopicUrls().equals(settings.getTopicUrls())) {
+            mMainHandler.postDelayed(mApplySettings, SETTINGS_DEBOUNCE_MILLIS);
+        } else {
+            mApplySettings.run();
+        }
+    }
+
+    // a pass that is running picks the settings up when it finishes, a stopped loader when it starts again
+    private final Runnable mApplySettings = new Runnable() {
+        @Override
+        public void run() {
+            mSettingsDue = true;
+            if (isStarted() && !mLoading) {
+                startLoad();
+            }
+        }
+    };
+
+    // lazily create the disk cache in the app's cache directory, which the system may clear when storage is low
+    static synchronized ArticleCache getCache(Context context) {
+        if (sCache == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), "articles");
+            sCache = new ArticleCache(directory, CACHE_MAX_BYTES, CACHE_TTL_MILLIS);
+        }
+        return sCache;
+    }
+
+    // lazily create the memory cache, it lives as long as the process
+    static synchronized ArticleMemoryCache getMemoryCache() {
+        if (sMemoryCache == null) {
+            sMemoryCache = new ArticleMemoryCache(MEMORY_CACHE_MAX_ENTRIES, CACHE_TTL_MILLIS);
+        }
+        return sMemoryCache;
+    }
+
+    // lazily open the local store in the app's files directory, which unlike the cache is never cleared by the system
+    static synchronized ArticleStore getStore(Context context) {
+        if (sStore == null) {
+            File file = new File(context.getApplicationContext().getFilesDir(), "articles.store");
+            sStore = new ArticleStore(file, STORE_MAX_ARTICLES);
+        }
+        return sStore;
+    }
+
+    // the store feed of a topic or page url, the same query with any api key or page dropped
+    static String feedOf(String url) {
+        int page = url.lastIndexOf("&page=");
+        return ArticleMemoryCache.normalize((page < 0) ? url : url.substring(0, page));
+    }
+
+    // bounded pool for the per-topic requests, idle threads are kept for the next page
+    static synchronized ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newFixedThreadPool(FAN_OUT_THREAD_COUNT);
+        }
+        return sExecutor;
+    }
+
+    // bounded pool for the background passes, kept apart from the topic requests the passes wait on
+    static synchronized ExecutorService getPipelineExecutor() {
+        if (sPipelineExecutor == null) {
+            sPipelineExecutor = Executors.newFixedThreadPool(PIPELINE_THREAD_COUNT);
+        }
+        return sPipelineExecutor;
     }
 
     @Override
     protected void onStartLoading() {
 
-        // this method is required to trigger loadInBackground()
-        forceLoad();
+        // pages already loaded are kept, otherwise returning to the activity would lose the scroll depth
+        // the last result is delivered again without a new request, also a failure or an empty feed,
+        // only a refresh by the user or changed settings request the feed again
+        // a pass that finished while the activity was stopped is delivered now, settings changed meanwhile right after
+        if (mResult != null) {
+            deliverResult(mResult);
+        } else if (mPageCount > 0) {
+            if (mSettingsDue && !mLoading) {
+                startLoad();
+            }
+        } else if (!mLoading) {
+            mPage = 1;
+            startLoad();
+        }
 
     }
 
+    // a forced load while a pass is running joins that pass rather than requesting the same pages twice
     @Override
-    public List<Article> loadInBackground() {
+    protected void onForceLoad() {
+        if (!mLoading) {
+            startLoad();
+        }
+    }
+
+    // abort the pass in progress, its requests are closed, its parsing stops and its result is dropped
+    // the pages it stored before the cancellation are kept
+    @Override
+    protected boolean onCancelLoad() {
+        if (mCancellation == null) {
+            return false;
+        }
+        mCancellation.cancel();
+        mTask.cancel(true);
+        mTask = null;
+        mCancellation = null;
+        mLoading = false;
+        mRevalidating = false;
+        mRefreshing = false;
+        Metrics.get().counter(Metrics.LOADER_CANCELLED).add(1);
+        return true;
+    }
+
+    @Override
+    protected void onReset() {
+        onCancelLoad();
+        mMainHandler.removeCallbacks(mApplySettings);
+        mResult = null;
+    }
+
+    // called by the list as it scrolls near the end, does nothing while a page is already loading
+    public void loadNextPage() {
+        if (isStarted() && !mLoading && !mLastPageReached && mPageCount > 0) {
+            mPage = mPageCount + 1;
+            startLoad();
+        }
+    }
+
+    // called by pull-to-refresh, requests only the articles published since the newest one held
+    // returns false if nothing was started because a load is already running
+    public boolean refresh() {
+        if (!isStarted() || mLoading) {
+            return false;
+        }
+        if (mPageCount == 0) {
+            mPage = 1;
+        } else {
+            mRefreshing = true;
+        }
+        startLoad();
+        return true;
+    }
+
+    // start a background pass, its result is delivered on the main thread unless the pass is cancelled first
+    private void startLoad() {
+        mLoading = true;
+
+        // changed settings that are due are applied by this pass
+        FeedSettings pending = null;
+        if (mSettingsDue) {
+            pending = mPendingSettings;
+            mPendingSettings = null;
+            mSettingsDue = false;
+        }
+        final FeedSettings settings = pending;
+
+        final Cancellation cancellation = new Cancellation();
+        mCancellation = cancellation;
+        mTask = getPipelineExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                final FeedResult result;
+                synchronized (mPassLock) {
+                    if (cancellation.isCancelled()) {
+                        return;
+                    }
+                    mPass = cancellation;
+                    result = loadInBackground(settings);
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        finishLoad(cancellation, result);
+                    }
+                });
+            }
+        });
+    }
+
+    // main thread, the result of a pass that was cancelled or superseded is dropped
+    // a result that arrives while the activity is stopped is kept for onStartLoading()
+    private void finishLoad(Cancellation cancellation, FeedResult result) {
+        if (cancellation != mCancellation) {
+            return;
+        }
+        mTask = null;
+        mCancellation = null;
+        mResult = result;
+        mLoading = false;
+        mRevalidating = false;
+        mRefreshing = false;
+        if (isStarted()) {
+            deliverResult(result);
+        }
+    }
 
-        // check that the input parameter has at least one string
-        if (mUrl == null) {
+    private FeedResult loadInBackground(FeedSettings settings) {
+        if (mUrls == null) {
+            readSettings();
+        } else if (settings != null) {
+            return applySettings(settings);
+        }
+
+        // check that there is at least one topic
+        if (mUrls.isEmpty()) {
             return null;
         }
 
+        if (mRefreshing) {
+            return refreshInBackground();
+        }
+        return loadPageInBackground(mPage);
+
+    }
+
+    // load a page of every topic
+    private FeedResult loadPageInBackground(final int page) {
+
+        // on a cold start the last feed is shown from the local store before any request is made
+        if (page == 1 && mPageCount == 0 && !mRevalidating) {
+            List<Article> stored = storedFeed(Math.max(mInitialCount, PAGE_SIZE));
+            if (!stored.isEmpty()) {
+                deliverPartialResult(FeedResult.ok(stored));
+            }
+        }
+
+        // request the page of every topic that has it, a page being revalidated is requested even for finished topics
+        List<String> urls = new ArrayList<>();
+        for (String url : mUrls) {
+            if (page <= mTopicPages.get(url).size() || !mFinishedTopics.contains(url)) {
+                urls.add(url);
+            }
+        }
+
+        // fetch stage, topics are stored here in the order they answer,
+        // the first failure is reported with all articles loaded
+        final FeedResult[] outcome = {null};
+        Metrics.Span fetch = Metrics.get().start(Metrics.LOADER_FETCH);
+        try {
+            FanOut.run(getExecutor(), urls, new FanOut.Task<String, FeedResult>() {
+                @Override
+                public FeedResult run(String url) {
+                    return loadPage(pageUrl(url, page));
+                }
+            }, new FanOut.Callback<String, FeedResult>() {
+                @Override
+                public void onResult(String url, FeedResult result, int remaining) {
+                    result = storePage(url, page, result);
+                    if (outcome[0] == null || outcome[0].isSuccessful() && !result.isSuccessful()) {
+                        outcome[0] = result;
+                    }
+                    if (remaining > 0) {
+                        deliverPartialResult(outcome[0].withArticles(currentFeed()));
+                    }
+                }
+            });
+        } catch (InterruptedException e) {
+
+            // the load was cancelled, the pages stored so far are kept
+            Log.d(LOG_TAG, "Cancelled loading page " + page);
+            Thread.currentThread().interrupt();
+        }
+        fetch.end();
+
+        if (page > mPageCount && hasPage(page)) {
+            mPageCount = page;
+        }
+        mLastPageReached = mFinishedTopics.size() == mUrls.size();
+
+        // post-process stage
+        Metrics.Span postProcess = Metrics.get().start(Metrics.LOADER_POST_PROCESS);
+        FeedResult result = (outcome[0] == null) ? FeedResult.ok(null) : outcome[0];
+        result = result.withArticles(currentFeed());
+        postProcess.end();
+        return result;
+
+    }
+
+    // request the articles of every topic published since the newest one it holds and put them ahead of its pages
+    private FeedResult refreshInBackground() {
+
+        // the newest date of each topic and every url held, read before the requests start
+        final Map<String, String> newestDates = new LinkedHashMap<>();
+        final Set<String> knownUrls = new HashSet<>();
+        for (String url : mUrls) {
+            List<List<Article>> lists = topicLists(url);
+            newestDates.put(url, DeltaRefresh.newestDate(lists));
+            for (List<Article> list : lists) {
+                for (Article article : list) {
+                    knownUrls.add(article.getUrl());
+                }
+            }
+        }
+
+        final FeedResult[] outcome = {null};
+        final boolean[] gapTooLarge = {false};
+        try {
+            FanOut.run(getExecutor(), mUrls, new FanOut.Task<String, DeltaRefresh.Delta>() {
+                @Override
+                public DeltaRefresh.Delta run(String url) {
+
+                    // a topic with nothing loaded yet has no date to start from, its first page is requested instead
+                    String newestDate = newestDates.get(url);
+                    if (newestDate.isEmpty()) {
+                        FeedResult firstPage = fetchPage(getContext(), pageUrl(url, 1), mProjection, mPass);
+                        return new DeltaRefresh.Delta(firstPage, firstPage.getArticles(), false);
+                    }
+                    DeltaRefresh.Delta delta = DeltaRefresh.fetchNewer(url, newestDate, knownUrls, mProjection,
+                            PAGE_SIZE, MAX_DELTA_PAGES, mPass);
+                    if (!delta.getArticles().isEmpty()) {
+                        getStore(getContext()).upsert(feedOf(url), delta.getArticles());
+                    }
+                    return delta;
+                }
+            }, new FanOut.Callback<String, DeltaRefresh.Delta>() {
+                @Override
+                public void onResult(String url, DeltaRefresh.Delta delta, int remaining) {
+                    mTopicDeltas.get(url).addAll(0, delta.getArticles());
+                    gapTooLarge[0] |= delta.isGapTooLarge();
+                    FeedResult result = delta.getResult();
+                    if (outcome[0] == null || outcome[0].isSuccessful() && !result.isSuccessful()) {
+                        outcome[0] = result;
+                    }
+                }
+            });
+        } catch (InterruptedException e) {
+            Log.d(LOG_TAG, "Cancelled refresh");
+            Thread.currentThread().interrupt();
+            return mResult;
+        }
+
+        // too much is new to fill in, the feed starts over from page 1 of every topic
+        if (gapTooLarge[0]) {
+            for (String url : mUrls) {
+                mTopicPages.get(url).clear();
+                mTopicDeltas.get(url).clear();
+            }
+            mFinishedTopics.clear();
+            mPageCount = 0;
+            mPage = 1;
+            mRevalidating = true;
+            return loadPageInBackground(1);
+        }
+
+        FeedResult result = (outcome[0] == null) ? FeedResult.ok(null) : outcome[0];
+        return result.withArticles(currentFeed());
+    }
+
+    // the new articles found by refreshes followed by the pages of a topic
+    private List<List<Article>> topicLists(String url) {
+        List<List<Article>> lists = new ArrayList<>();
+        lists.add(mTopicDeltas.get(url));
+        lists.addAll(mTopicPages.get(url));
+        return lists;
+    }
+
+    // store the page of a topic, which replaces the previous copy of that page if it is being revalidated
+    private FeedResult storePage(String url, int page, FeedResult result) {
+
+        // a failed request may still return stale cached articles for the page
+        List<List<Article>> pages = mTopicPages.get(url);
+        List<Article> articles = result.getArticles();
+        if (page <= pages.size()) {
+            pages.set(page - 1, articles);
+        } else if (!articles.isEmpty()) {
+            pages.add(articles);
+        }
+
+        // a short page is the last one, the Guardian API replies 400 beyond the last page
+        if (result.isSuccessful() && articles.size() < PAGE_SIZE) {
+            mFinishedTopics.add(url);
+        } else if (page > 1 && result.getHttpCode() == HttpURLConnection.HTTP_BAD_REQUEST) {
+            mFinishedTopics.add(url);
+            result = FeedResult.ok(articles);
+        }
+        return result;
+    }
+
+    // true if any topic has the page
+    private boolean hasPage(int page) {
+        for (List<List<Article>> pages : mTopicPages.values()) {
+            if (pages.size() >= page) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // returns a single page from memory, disk or network, called concurrently for different topics
+    private FeedResult loadPage(String url) {
+
+        ArticleCache cache = getCache(getContext());
+        ArticleMemoryCache memoryCache = getMemoryCache();
+
+        if (!mRevalidating) {
+
+            // returning to the activity or rotating the device is answered from memory without parsing
+            ArticleMemoryCache.Entry memoryEntry = memoryCache.get(url);
+            if (memoryEntry != null) {
+                if (memoryEntry.isStale()) {
+                    mRevalidate = true;
+                }
+                return FeedResult.ok(memoryEntry.getArticles());
+            }
+
+            // otherwise render whatever is cached on disk immediately
+            ArticleCache.Entry entry = cache.get(url);
+            if (entry != null) {
+                List<Article> cached = QueryUtils.readCachedArticles(entry);
+
+                // a fresh entry needs no network request at all
+                // a stale entry is shown while the conditional request runs in a second pass
+                if (!cached.isEmpty()) {
+                    memoryCache.put(url, cached);
+                    if (entry.isExpired()) {
+                        mRevalidate = true;
+                    }
+                    return FeedResult.ok(cached);
+                }
+            }
+        }
+
+        return fetchPage(getContext(), url, mProjection, mPass);
+    }
+
+    // the url of a page of a topic
+    static String pageUrl(String url, int page) {
+        return url + "&page=" + page;
+    }
+
+    // request a page from the network and keep it in the disk cache, the memory cache and the local store
+    // also used by the background sync so the loader finds what the sync fetched
+    static FeedResult fetchPage(Context context, String pageUrl, FieldProjection projection,
+            Cancellation cancellation) {
+
         // perform the HTTP request for article data and process the JSON response
-        List<Article> articles = QueryUtils.fetchArticleData(mUrl);
+        FeedResult result = QueryUtils.fetchArticleData(pageUrl, getCache(context), projection, cancellation);
 
-        return articles;
+        // failures and empty results are not cached so the next load tries the network again
+        // current articles are merged into the local store, articles already stored unchanged are not rewritten
+        if (result.isSuccessful() && !result.getArticles().isEmpty()) {
+            getMemoryCache().put(pageUrl, result.getArticles());
+            getStore(context).upsert(feedOf(pageUrl), result.getArticles());
+        }
+
+        return result;
+    }
+
+    // the feed to show, all pages of all topics loaded so far
+    // the local store keeps the feed on screen when nothing could be loaded, for example offline
+    private List<Article> currentFeed() {
+        List<Article> merged = mergePages();
+        if (!merged.isEmpty()) {
+            return merged;
+        }
+        return storedFeed(mInitialCount);
+    }
+
+    // all pages of all topics loaded so far, both date orders are sorted here so changing between them needs no request,
+    // relevance scores of different queries cannot be compared, so several topics are merged newest first
+    private List<Article> mergePages() {
+        List<List<Article>> lists = new ArrayList<>();
+        for (String url : mUrls) {
+            lists.addAll(topicLists(url));
+        }
+        Comparator<Article> order = (mOrder == ArticleStore.Order.OLDEST_FIRST) ? ArticleMerger.OLDEST_FIRST
+                : (mOrder != null || mUrls.size() > 1) ? ArticleMerger.NEWEST_FIRST : null;
+        return ArticleMerger.merge(lists, order);
+    }
+
+    // the newest stored articles of the topics, a query on the store's date index
+    // they are the articles the requests would load, so they are sorted like the loaded pages would be
+    // relevance has no local equivalent, stored articles are then shown newest first
+    private List<Article> storedFeed(int count) {
+        List<Article> stored = getStore(getContext()).query(mFeeds, ArticleStore.Order.NEWEST_FIRST, count);
+        if (mOrder == ArticleStore.Order.OLDEST_FIRST) {
+            Collections.reverse(stored);
+        }
+        return stored;
+    }
+
+    // show the topics that answered while the others are still loading, without the follow-up of deliverResult
+    private void deliverPartialResult(final FeedResult result) {
+        final Cancellation pass = mPass;
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (pass == mCancellation && isStarted()) {
+                    ArticleLoader.super.deliverResult(result);
+                }
+            }
+        });
+    }
+
+    // deliver stage, also redelivers the kept result when the activity returns
+    @Override
+    public void deliverResult(FeedResult result) {
+
+        // pass the result to the activity
+        Metrics.Span deliver = Metrics.get().start(Metrics.LOADER_DELIVER);
+        super.deliverResult(result);
+        deliver.end();
+
+        // a pass is still running, it delivers and continues when it finishes
+        if (mLoading) {
+            return;
+        }
+
+        // the settings changed while the pass was running or the activity was stopped
+        if (mSettingsDue) {
+            startLoad();
+            return;
+        }
+
+        // stale cached articles are now on screen, revalidate them against the server
+        if (mRevalidate) {
+            mRevalidate = false;
+            mRevalidating = true;
+            startLoad();
+        }
+
+        // keep loading pages until the preferred number of articles is shown
+        // after a failure the next page waits for the user to scroll, so a failing API is not called in a loop
+        else if (result != null && result.isSuccessful() && !mLastPageReached && mPageCount > 0
+                && result.getArticles().size() < mInitialCount) {
+            mPage = mPageCount + 1;
+            startLoad();
+        }
 
     }
 
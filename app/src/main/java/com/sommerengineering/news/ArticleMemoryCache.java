@@ -0,0 +1,138 @@
+package com.sommerengineering.news;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// process-wide memory cache of parsed article lists, sits in front of the disk ArticleCache
+// entries are keyed by the normalized query so equivalent urls share one entry
+// stale entries are still returned, the caller decides whether to refresh them
+public class ArticleMemoryCache {
+
+    // query parameters that do not change the response are left out of the key
+    private static final List<String> IGNORED_PARAMETERS = Arrays.asList("api-key");
+
+    // state variables defined in the constructor
+    private final int mMaxEntries;
+    private final long mTtlMillis;
+
+    // access-ordered map, the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> mEntries;
+
+    // counters for measuring the hit rate
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    // the same counts for the whole process, shown in the debug screen and the metrics export
+    private final Metrics.Counter mHitCounter = Metrics.get().counter(Metrics.MEMORY_CACHE_HITS);
+    private final Metrics.Counter mMissCounter = Metrics.get().counter(Metrics.MEMORY_CACHE_MISSES);
+    private final Metrics.Counter mEvictionCounter = Metrics.get().counter(Metrics.MEMORY_CACHE_EVICTIONS);
+
+    public ArticleMemoryCache(int maxEntries, long ttlMillis) {
+        mMaxEntries = maxEntries;
+        mTtlMillis = ttlMillis;
+        mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > mMaxEntries) {
+                    mEvictionCount++;
+                    mEvictionCounter.add(1);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // returns the cached entry for the url's query, or null if there is none
+    public synchronized Entry get(String url) {
+        Entry entry = mEntries.get(normalize(url));
+        if (entry == null) {
+            mMissCount++;
+            mMissCounter.add(1);
+        } else {
+            mHitCount++;
+            mHitCounter.add(1);
+        }
+        return entry;
+    }
+
+    // store an immutable copy of the articles for the url's query
+    public synchronized void put(String url, List<Article> articles) {
+        mEntries.put(normalize(url), new Entry(
+                Collections.unmodifiableList(new ArrayList<>(articles)), System.currentTimeMillis() + mTtlMillis));
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long requests = mHitCount + mMissCount;
+        int hitPercent = (requests == 0) ? 0 : (int) (100 * mHitCount / requests);
+        return String.format(Locale.US, "ArticleMemoryCache[size=%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]",
+                mEntries.size(), mHitCount, mMissCount, mEvictionCount, hitPercent);
+    }
+
+    // reduce a url to its sorted query parameters, for example "order-by=newest&page-size=10&q=surf"
+    static String normalize(String url) {
+
+        int queryStart = url.indexOf('?');
+        if (queryStart < 0) {
+            return url;
+        }
+
+        List<String> parameters = new ArrayList<>();
+        for (String parameter : url.substring(queryStart + 1).split("&")) {
+            String name = parameter.split("=", 2)[0];
+            if (!parameter.isEmpty() && !IGNORED_PARAMETERS.contains(name)) {
+                parameters.add(parameter);
+            }
+        }
+        Collections.sort(parameters);
+
+        // the path is kept so queries against different endpoints never collide
+        StringBuilder key = new StringBuilder(url.substring(0, queryStart)).append('?');
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                key.append('&');
+            }
+            key.append(parameters.get(i));
+        }
+        return key.toString();
+    }
+
+    // a cached article list and the time after which it should be refreshed
+    public static class Entry {
+
+        private final List<Article> mArticles;
+        private final long mExpiresAt;
+
+        private Entry(List<Article> articles, long expiresAt) {
+            mArticles = articles;
+            mExpiresAt = expiresAt;
+        }
+
+        public List<Article> getArticles() {
+            return mArticles;
+        }
+
+        // stale entries are still safe to display while a refresh runs
+        public boolean isStale() {
+            return System.currentTimeMillis() > mExpiresAt;
+        }
+    }
+
+}
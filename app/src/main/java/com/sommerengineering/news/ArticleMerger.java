@@ -0,0 +1,45 @@
+package com.sommerengineering.news;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// combines the article lists of several queries into one feed
+public final class ArticleMerger {
+
+    // publication dates are held as epoch milliseconds, compared as numbers without parsing or allocating
+    public static final Comparator<Article> NEWEST_FIRST = new Comparator<Article>() {
+        @Override
+        public int compare(Article first, Article second) {
+            return Long.compare(second.getDateMillis(), first.getDateMillis());
+        }
+    };
+    public static final Comparator<Article> OLDEST_FIRST = Collections.reverseOrder(NEWEST_FIRST);
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private ArticleMerger() {}
+
+    // an article returned by more than one query appears once, at its first position
+    // a null order keeps the order of the queries, otherwise the sort is stable so ties keep that order
+    public static List<Article> merge(List<List<Article>> lists, Comparator<Article> order) {
+
+        Map<String, Article> articlesByUrl = new LinkedHashMap<>();
+        for (List<Article> list : lists) {
+            for (Article article : list) {
+                if (!articlesByUrl.containsKey(article.getUrl())) {
+                    articlesByUrl.put(article.getUrl(), article);
+                }
+            }
+        }
+
+        List<Article> merged = new ArrayList<>(articlesByUrl.values());
+        if (order != null) {
+            Collections.sort(merged, order);
+        }
+        return merged;
+    }
+
+}
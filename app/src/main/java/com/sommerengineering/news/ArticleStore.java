@@ -0,0 +1,338 @@
+package com.sommerengineering.news;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// persistent store of parsed articles so the feed can be shown with no network at all
+// the file is an append-only log of upserts and deletes, read once into memory indexes on url and
+// publication date, and rewritten without superseded records when it grows too large
+// each article belongs to every feed, a normalized topic url, that has returned it
+// an upsert record adds its feed to those of the article, a delete removes the article from all of them
+public class ArticleStore {
+
+    // first bytes of the file, and the version of the record layout
+    private static final int MAGIC = 0x4e455753;
+    private static final int VERSION = 1;
+
+    // record types
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+
+    // the log is compacted once superseded records outnumber live ones by this much
+    private static final int COMPACTION_SLACK = 256;
+
+    // order of query results
+    public enum Order {
+        NEWEST_FIRST,
+        OLDEST_FIRST
+    }
+
+    // records sort by publication date, the url breaks ties so distinct articles never compare equal
+    private static final Comparator<Record> BY_DATE = new Comparator<Record>() {
+        @Override
+        public int compare(Record first, Record second) {
+            int result = Long.compare(first.mArticle.getDateMillis(), second.mArticle.getDateMillis());
+            return (result != 0) ? result : first.mArticle.getUrl().compareTo(second.mArticle.getUrl());
+        }
+    };
+
+    // state variables defined in the constructor
+    private final File mFile;
+    private final int mMaxArticles;
+
+    // indexes over the live records
+    private final Map<String, Record> mByUrl = new HashMap<>();
+    private final TreeSet<Record> mByDate = new TreeSet<>(BY_DATE);
+
+    // full-text index over the same records, kept in step with the others
+    private final SearchIndex mSearchIndex = new SearchIndex();
+
+    // records in the log file, including superseded ones
+    private int mLogRecordCount;
+
+    // live memberships of an article in a feed, the records a compacted log holds
+    private int mMembershipCount;
+
+    // set when the file cannot be appended to as is: a torn or unreadable record, or a failed write
+    // the next write rewrites the file from the memory indexes
+    private boolean mDamaged;
+
+    // appends to the log, opened on the first write
+    private DataOutputStream mLog;
+
+    // reads the whole log into memory, a missing or unreadable file gives an empty store
+    public ArticleStore(File file, int maxArticles) {
+        mFile = file;
+        mMaxArticles = maxArticles;
+        load();
+    }
+
+    // insert new articles, replace changed ones and add the feed to those the articles belong to,
+    // returns the number of records written
+    // unchanged articles already in the feed are skipped so a refresh that brings nothing new writes nothing
+    public synchronized int upsert(String feed, Collection<Article> articles) {
+        List<Record> changed = new ArrayList<>();
+        for (Article article : articles) {
+            Record existing = mByUrl.get(article.getUrl());
+            if (existing == null || !existing.mFeeds.contains(feed) || !sameContents(existing.mArticle, article)) {
+                Record record = new Record(withFeed(existing, feed), article);
+                index(record);
+                changed.add(record);
+            }
+        }
+
+        // the oldest articles make room for new ones
+        List<String> evicted = new ArrayList<>();
+        while (mByUrl.size() > mMaxArticles) {
+            Record oldest = mByDate.first();
+            unindex(oldest);
+            evicted.add(oldest.mArticle.getUrl());
+        }
+
+        try {
+            if (mLogRecordCount > 2 * mMembershipCount + COMPACTION_SLACK) {
+                compact();
+            } else if (!changed.isEmpty() || !evicted.isEmpty()) {
+                DataOutputStream log = openLog();
+                for (Record record : changed) {
+                    if (mByUrl.get(record.mArticle.getUrl()) == record) {
+                        writeUpsert(log, feed, record.mArticle);
+                    }
+                }
+                for (String url : evicted) {
+                    log.writeByte(DELETE);
+                    log.writeUTF(url);
+                    mLogRecordCount++;
+                }
+                log.flush();
+            }
+        } catch (IOException e) {
+
+            // the memory indexes are still current, the next write rewrites the file from them
+            closeLog();
+            mDamaged = true;
+        }
+        return changed.size();
+    }
+
+    // articles of any of the given feeds, or of all feeds if null, in date order, at most limit of them
+    public synchronized List<Article> query(Set<String> feeds, Order order, int limit) {
+        Iterator<Record> iterator = (order == Order.NEWEST_FIRST) ? mByDate.descendingIterator() : mByDate.iterator();
+        List<Article> articles = new ArrayList<>();
+        while (iterator.hasNext() && articles.size() < limit) {
+            Record record = iterator.next();
+            if (feeds == null || !Collections.disjoint(feeds, record.mFeeds)) {
+                articles.add(record.mArticle);
+            }
+        }
+        return articles;
+    }
+
+    // stored articles matching every word of the query as a prefix, newest first, at most limit of them
+    // answered from memory alone, so it is fast enough to run on every keystroke
+    public synchronized List<Article> search(String query, int limit) {
+        return mSearchIndex.search(query, limit);
+    }
+
+    // the stored article with the url, or null
+    public synchronized Article get(String url) {
+        Record record = mByUrl.get(url);
+        return (record == null) ? null : record.mArticle;
+    }
+
+    // number of stored articles
+    public synchronized int size() {
+        return mByUrl.size();
+    }
+
+    // flush and release the log file
+    public synchronized void close() {
+        closeLog();
+    }
+
+    private void load() {
+        if (!mFile.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if (in.readInt() != MAGIC || in.readInt() > VERSION) {
+
+                // a file of an unknown layout is replaced by the next write
+                mDamaged = true;
+                return;
+            }
+            int type;
+            while ((type = in.read()) != -1) {
+                if (type == UPSERT) {
+                    String feed = in.readUTF();
+                    String url = in.readUTF();
+                    String title = in.readUTF();
+                    String trailText = in.readUTF();
+                    String firstName = in.readUTF();
+                    String lastName = in.readUTF();
+                    String date = in.readUTF();
+                    String section = in.readUTF();
+                    String thumbnail = in.readUTF();
+                    index(new Record(withFeed(mByUrl.get(url), feed), new Article(title, trailText, firstName,
+                            lastName, date, section, url, thumbnail)));
+                } else if (type == DELETE) {
+                    Record record = mByUrl.get(in.readUTF());
+                    if (record != null) {
+                        unindex(record);
+                    }
+                } else {
+                    throw new IOException("Unknown record type " + type);
+                }
+                mLogRecordCount++;
+            }
+        } catch (IOException e) {
+
+            // a record cut short by a crash, or a corrupt log, keeps what was read before the damage
+            mDamaged = true;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // rewrite the log with one record per live article, replacing the file atomically
+    private void compact() throws IOException {
+        closeLog();
+        File parent = mFile.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create store directory " + parent);
+        }
+        File temp = new File(mFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Record record : mByDate) {
+                for (String feed : record.mFeeds) {
+                    writeUpsert(out, feed, record.mArticle);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(mFile)) {
+            temp.delete();
+            throw new IOException("Unable to replace " + mFile);
+        }
+        mLogRecordCount = mMembershipCount;
+        mDamaged = false;
+    }
+
+    private DataOutputStream openLog() throws IOException {
+        if (mLog == null) {
+            if (!mFile.exists() || mDamaged) {
+                compact();
+            }
+            mLog = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mFile, true)));
+        }
+        return mLog;
+    }
+
+    private void closeLog() {
+        if (mLog != null) {
+            try {
+                mLog.close();
+            } catch (IOException ignored) {
+            }
+            mLog = null;
+        }
+    }
+
+    private void writeUpsert(DataOutputStream out, String feed, Article article) throws IOException {
+        out.writeByte(UPSERT);
+        out.writeUTF(feed);
+        out.writeUTF(article.getUrl());
+        out.writeUTF(article.getTitle());
+        out.writeUTF(article.getTrailText());
+        out.writeUTF(article.getFirstName());
+        out.writeUTF(article.getLastName());
+        out.writeUTF(article.getDate());
+        out.writeUTF(article.getSection());
+        out.writeUTF(article.getThumbnail());
+        mLogRecordCount++;
+    }
+
+    // add a record to every index, replacing the previous record for the same url
+    private void index(Record record) {
+        Record previous = mByUrl.get(record.mArticle.getUrl());
+        if (previous != null) {
+            unindex(previous);
+        }
+        mByUrl.put(record.mArticle.getUrl(), record);
+        mByDate.add(record);
+        mSearchIndex.add(record.mArticle);
+        mMembershipCount += record.mFeeds.size();
+    }
+
+    private void unindex(Record record) {
+        mByUrl.remove(record.mArticle.getUrl());
+        mByDate.remove(record);
+        mSearchIndex.remove(record.mArticle.getUrl());
+        mMembershipCount -= record.mFeeds.size();
+    }
+
+    // the feeds of an existing record, if any, and the given one
+    private static Set<String> withFeed(Record existing, String feed) {
+        if (existing == null) {
+            return Collections.singleton(feed);
+        }
+        if (existing.mFeeds.contains(feed)) {
+            return existing.mFeeds;
+        }
+        Set<String> feeds = new HashSet<>(existing.mFeeds);
+        feeds.add(feed);
+        return Collections.unmodifiableSet(feeds);
+    }
+
+    private static boolean sameContents(Article first, Article second) {
+        return first.getTitle().equals(second.getTitle())
+                && first.getTrailText().equals(second.getTrailText())
+                && first.getFirstName().equals(second.getFirstName())
+                && first.getLastName().equals(second.getLastName())
+                && first.getDateMillis() == second.getDateMillis()
+                && first.getDisplayDate().equals(second.getDisplayDate())
+                && first.getSection().equals(second.getSection())
+                && first.getThumbnail().equals(second.getThumbnail());
+    }
+
+    // a stored article and the feeds it belongs to
+    private static class Record {
+
+        private final Set<String> mFeeds;
+        private final Article mArticle;
+
+        Record(Set<String> feeds, Article article) {
+            mFeeds = feeds;
+            mArticle = article;
+        }
+    }
+
+}
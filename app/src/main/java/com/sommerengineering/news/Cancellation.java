@@ -0,0 +1,67 @@
+package com.sommerengineering.news;
+
+import android.util.Log;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// cancels one load from another thread
+// the stages check isCancelled() between steps, and every request in flight registers how to abort it,
+// so a read blocked on the socket fails at once instead of running on until the read timeout
+// an interrupt alone cannot do this, socket reads do not respond to it
+public class Cancellation {
+
+    // simple tag for log messages
+    private static final String LOG_TAG = Cancellation.class.getSimpleName();
+
+    private boolean mCancelled;
+
+    // the requests in flight, several when the topics of a page are requested concurrently
+    private final Set<Closeable> mRequests = new LinkedHashSet<>();
+
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    // abort every request in flight, later requests are aborted as soon as they register
+    public void cancel() {
+        Closeable[] requests;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            requests = mRequests.toArray(new Closeable[mRequests.size()]);
+            mRequests.clear();
+        }
+        for (Closeable request : requests) {
+            abort(request);
+        }
+    }
+
+    // called before a request starts, a request registered after cancel() is aborted immediately
+    public void register(Closeable request) {
+        synchronized (this) {
+            if (!mCancelled) {
+                mRequests.add(request);
+                return;
+            }
+        }
+        abort(request);
+    }
+
+    // called once the request has completed
+    public synchronized void unregister(Closeable request) {
+        mRequests.remove(request);
+    }
+
+    private static void abort(Closeable request) {
+        try {
+            request.close();
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Error aborting request.", e);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.sommerengineering.news;
+
+// stops calling the Guardian API after repeated failures so a struggling or rate limiting server is not hammered
+// closed: requests flow, consecutive failures are counted
+// open: requests are refused until the cool-down has passed
+// half-open: a single trial request is let through, its outcome closes or reopens the breaker
+// a trial that ends without an outcome, a cancel or a client error, is released so the next request is the trial
+public class CircuitBreaker {
+
+    // state variables defined in the constructor
+    private final int mFailureThreshold;
+    private final long mOpenMillis;
+    private final Clock mClock;
+
+    // consecutive failed requests
+    private int mFailureCount;
+
+    // requests are refused before this time, zero while closed
+    private long mOpenUntil;
+
+    // the thread running the half-open trial request, null while none is running
+    private Thread mTrialThread;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, Clock clock) {
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+        mClock = clock;
+    }
+
+    // true if a request may be made now, in the half-open state only the first caller gets true
+    public synchronized boolean allowRequest() {
+        if (mOpenUntil == 0) {
+            return true;
+        }
+        if (mClock.currentTimeMillis() < mOpenUntil || mTrialThread != null) {
+            return false;
+        }
+        mTrialThread = Thread.currentThread();
+        return true;
+    }
+
+    // called once a request that was let through has finished, whatever its outcome
+    // if it was the trial and recorded neither a success nor a failure the next request becomes the trial
+    public synchronized void releaseTrial() {
+        if (mTrialThread == Thread.currentThread()) {
+            mTrialThread = null;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        mFailureCount = 0;
+        mOpenUntil = 0;
+        mTrialThread = null;
+    }
+
+    // a server's Retry-After is not a reason to open, the RateLimiter holds requests back until it has passed
+    public synchronized void recordFailure() {
+        mFailureCount++;
+        mTrialThread = null;
+        if (mFailureCount >= mFailureThreshold) {
+            mOpenUntil = mClock.currentTimeMillis() + mOpenMillis;
+        }
+    }
+
+    // true while requests are being refused
+    public synchronized boolean isOpen() {
+        return mOpenUntil != 0 && mClock.currentTimeMillis() < mOpenUntil;
+    }
+
+}
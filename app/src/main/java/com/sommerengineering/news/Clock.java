@@ -0,0 +1,16 @@
+package com.sommerengineering.news;
+
+// source of the current time, replaced by a fake clock in unit tests
+public interface Clock {
+
+    long currentTimeMillis();
+
+    // wall clock time of the device
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+}
@@ -0,0 +1,95 @@
+package com.sommerengineering.news;
+
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// requests only the articles of a topic published since the newest one already held
+// the Guardian from-date parameter is inclusive, so the newest held article comes back and is dropped by url
+public final class DeltaRefresh {
+
+    // simple tag for log messages
+    private static final String LOG_TAG = DeltaRefresh.class.getSimpleName();
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private DeltaRefresh() {}
+
+    // the latest publication date in the lists, empty if there are no articles
+    // an article whose date is not a timestamp cannot bound the request and is passed over
+    public static String newestDate(List<List<Article>> lists) {
+        Article newest = null;
+        for (List<Article> list : lists) {
+            for (Article article : list) {
+                if (article.getDateMillis() != Long.MIN_VALUE
+                        && (newest == null || article.getDateMillis() > newest.getDateMillis())) {
+                    newest = article;
+                }
+            }
+        }
+        return (newest == null) ? "" : newest.getDate();
+    }
+
+    // the topic query restricted to articles published at or after the date, newest first
+    // the full webPublicationDate timestamp is passed so the window is exact to the second
+    static String deltaUrl(String topicUrl, String fromDate, int page) {
+        return topicUrl.replaceFirst("order-by=[^&]*", "order-by=newest") + "&from-date=" + fromDate + "&page=" + page;
+    }
+
+    // fetch the articles newer than fromDate that are not already known, following pages while they come back full
+    // more than maxPages of new articles is reported as a gap too large to fill, the caller reloads instead
+    public static Delta fetchNewer(String topicUrl, String fromDate, Set<String> knownUrls, FieldProjection projection,
+            int pageSize, int maxPages, Cancellation cancellation) {
+
+        List<Article> articles = new ArrayList<>();
+        for (int page = 1; page <= maxPages; page++) {
+
+            // a delta url is never requested twice, it is not worth a disk cache entry
+            FeedResult result = QueryUtils.fetchArticleData(deltaUrl(topicUrl, fromDate, page), null, projection,
+                    cancellation);
+            if (!result.isSuccessful()) {
+                return new Delta(result, articles, false);
+            }
+            for (Article article : result.getArticles()) {
+                if (!knownUrls.contains(article.getUrl())) {
+                    articles.add(article);
+                }
+            }
+            if (result.getArticles().size() < pageSize) {
+                Log.d(LOG_TAG, articles.size() + " new articles in " + page + " pages since " + fromDate);
+                return new Delta(result, articles, false);
+            }
+        }
+        return new Delta(FeedResult.ok(articles), articles, true);
+    }
+
+    // the outcome of a delta refresh of one topic
+    public static class Delta {
+
+        private final FeedResult mResult;
+        private final List<Article> mArticles;
+        private final boolean mGapTooLarge;
+
+        Delta(FeedResult result, List<Article> articles, boolean gapTooLarge) {
+            mResult = result;
+            mArticles = articles;
+            mGapTooLarge = gapTooLarge;
+        }
+
+        // status of the last request
+        public FeedResult getResult() {
+            return mResult;
+        }
+
+        // the new articles, newest first
+        public List<Article> getArticles() {
+            return mArticles;
+        }
+
+        // true if the new articles did not fit in the pages allowed, the topic should be reloaded from page 1
+        public boolean isGapTooLarge() {
+            return mGapTooLarge;
+        }
+    }
+
+}
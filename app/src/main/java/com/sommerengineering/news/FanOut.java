@@ -0,0 +1,71 @@
+package com.sommerengineering.news;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// runs one task per key concurrently and hands each result back as soon as it completes
+// the total time is roughly that of the slowest task, as long as the executor has a thread per key
+public final class FanOut {
+
+    // work done for a single key on an executor thread
+    public interface Task<K, V> {
+        V run(K key);
+    }
+
+    // called on the calling thread in completion order, remaining is the number of results still to come
+    public interface Callback<K, V> {
+        void onResult(K key, V value, int remaining);
+    }
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private FanOut() {}
+
+    // blocks until every task has completed, an interrupt cancels the tasks still running
+    public static <K, V> void run(ExecutorService executor, List<K> keys, final Task<K, V> task, Callback<K, V> callback)
+            throws InterruptedException {
+
+        CompletionService<V> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<V>, K> futureKeys = new HashMap<>();
+        List<Future<V>> futures = new ArrayList<>();
+        for (final K key : keys) {
+            Future<V> future = completionService.submit(new Callable<V>() {
+                @Override
+                public V call() {
+                    return task.run(key);
+                }
+            });
+            futureKeys.put(future, key);
+            futures.add(future);
+        }
+
+        try {
+            for (int remaining = keys.size() - 1; remaining >= 0; remaining--) {
+                Future<V> future = completionService.take();
+                V value;
+                try {
+                    value = future.get();
+                } catch (ExecutionException e) {
+
+                    // tasks report their own failures, an exception here is a bug
+                    throw new RuntimeException(e.getCause());
+                }
+                callback.onResult(futureKeys.get(future), value, remaining);
+            }
+        } finally {
+
+            // completed futures ignore this, only an interrupt or a failing callback leaves tasks running
+            for (Future<V> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+}
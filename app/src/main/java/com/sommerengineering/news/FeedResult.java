@@ -0,0 +1,74 @@
+package com.sommerengineering.news;
+
+import java.util.Collections;
+import java.util.List;
+
+// outcome of loading the feed, so a failure is never mistaken for "no articles found"
+// a failed result may still carry articles, these are stale cached articles shown while the API is failing
+public class FeedResult {
+
+    public enum Status {
+        OK, // the articles are current, possibly none matched the query
+        NETWORK_ERROR, // the server could not be reached
+        HTTP_ERROR, // the server replied with an error status
+        RATE_LIMITED, // the server replied 429 Too Many Requests
+        MALFORMED_RESPONSE, // the response could not be parsed
+        CIRCUIT_OPEN, // no request was made because the API has been failing
+        CANCELLED // the load was cancelled before the request completed
+    }
+
+    // attributes
+    private final Status mStatus;
+    private final List<Article> mArticles;
+    private final int mHttpCode; // -1 if there was no HTTP response
+
+    // server requested wait before the next request, zero if none
+    private final long mRetryAfterMillis;
+
+    public FeedResult(Status status, List<Article> articles, int httpCode, long retryAfterMillis) {
+        mStatus = status;
+        mArticles = (articles == null) ? Collections.<Article>emptyList() : articles;
+        mHttpCode = httpCode;
+        mRetryAfterMillis = retryAfterMillis;
+    }
+
+    // a successful result
+    public static FeedResult ok(List<Article> articles) {
+        return new FeedResult(Status.OK, articles, -1, 0);
+    }
+
+    // the result of a cancelled request, which is never delivered
+    public static FeedResult cancelled() {
+        return new FeedResult(Status.CANCELLED, null, -1, 0);
+    }
+
+    // the same failure carrying fallback articles
+    public FeedResult withArticles(List<Article> articles) {
+        return new FeedResult(mStatus, articles, mHttpCode, mRetryAfterMillis);
+    }
+
+    // getters
+    public Status getStatus() {
+        return mStatus;
+    }
+    public List<Article> getArticles() {
+        return mArticles;
+    }
+    public int getHttpCode() {
+        return mHttpCode;
+    }
+    public long getRetryAfterMillis() {
+        return mRetryAfterMillis;
+    }
+
+    public boolean isSuccessful() {
+        return mStatus == Status.OK;
+    }
+
+    // transient failures that are worth retrying: no connection, server errors and rate limiting
+    public boolean isRetryable() {
+        return mStatus == Status.NETWORK_ERROR || mStatus == Status.RATE_LIMITED
+                || mStatus == Status.HTTP_ERROR && mHttpCode >= 500;
+    }
+
+}
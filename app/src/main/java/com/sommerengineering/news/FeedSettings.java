@@ -0,0 +1,163 @@
+package com.sommerengineering.news;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.preference.PreferenceManager;
+import java.util.ArrayList;
+import java.util.List;
+
+// the user's feed preferences and the Guardian requests they lead to
+// shared by the activity and the background sync so both request, and cache, exactly the same urls
+public class FeedSettings {
+
+    // URL query returns JSON object representing news articles from The Guardian
+    // the endpoint and api key come from the build, see the guardianBaseUrl and guardianApiKey properties
+    private static final String GUARDIAN_REQUEST_URL = BuildConfig.GUARDIAN_BASE_URL;
+    private static final String GUARDIAN_API_KEY = BuildConfig.GUARDIAN_API_KEY;
+
+    // the article fields shown in each row, only these are requested and parsed
+    public static final FieldProjection FEED_PROJECTION = new FieldProjection(
+            FieldProjection.Field.HEADLINE,
+            FieldProjection.Field.TRAIL_TEXT,
+            FieldProjection.Field.THUMBNAIL,
+            FieldProjection.Field.AUTHOR);
+
+    // a topic starting with this prefix follows a Guardian section instead of a search term
+    private static final String SECTION_PREFIX = "section:";
+
+    // attributes
+    private final List<String> mTopicUrls;
+    private final ArticleStore.Order mOrder;
+    private final int mInitialCount;
+    private final boolean mSyncUnmeteredOnly;
+    private final boolean mSyncChargingOnly;
+
+    private FeedSettings(List<String> topicUrls, ArticleStore.Order order, int initialCount,
+            boolean syncUnmeteredOnly, boolean syncChargingOnly) {
+        mTopicUrls = topicUrls;
+        mOrder = order;
+        mInitialCount = initialCount;
+        mSyncUnmeteredOnly = syncUnmeteredOnly;
+        mSyncChargingOnly = syncChargingOnly;
+    }
+
+    // read the current preferences
+    public static FeedSettings read(Context context) {
+
+        // get the hardcoded default preferences
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        // retrieve user preference for the number of articles to display before scrolling
+        // a reference to the default preference is required by getString
+        String pageCountKey = context.getString(R.string.settings_min_magnitude_key);
+        String pageCountDefaultValue = context.getString(R.string.settings_min_magnitude_default);
+        int pageCount = parseCount(sharedPrefs.getString(pageCountKey, pageCountDefaultValue),
+                Integer.parseInt(pageCountDefaultValue));
+
+        // retrieve user preference for order-by
+        // a reference to the default preference is required by getString
+        String orderByKey = context.getString(R.string.settings_order_by_key);
+        String orderByDefaultValue = context.getString(R.string.settings_order_by_default);
+        String orderBy = sharedPrefs.getString(orderByKey, orderByDefaultValue);
+
+        // retrieve user preference for the followed topics, a comma separated list of search terms
+        // a reference to the default preference is required by getString
+        String topicsKey = context.getString(R.string.settings_topics_key);
+        String topicsDefaultValue = context.getString(R.string.settings_topics_default);
+        List<String> topics = parseTopics(sharedPrefs.getString(topicsKey, topicsDefaultValue), topicsDefaultValue);
+
+        // retrieve user preferences for the conditions of the background sync
+        boolean unmeteredOnly = sharedPrefs.getBoolean(context.getString(R.string.settings_sync_unmetered_key),
+                context.getResources().getBoolean(R.bool.settings_sync_unmetered_default));
+        boolean chargingOnly = sharedPrefs.getBoolean(context.getString(R.string.settings_sync_charging_key),
+                context.getResources().getBoolean(R.bool.settings_sync_charging_default));
+
+        // date orders are applied by sorting the loaded articles, the server is always asked for the newest articles
+        // so both date orders share the same requests and cached responses, relevance is ordered by the server
+        // oldest therefore means the loaded articles oldest first, which the label of the preference says
+        ArticleStore.Order order = null;
+        if (orderBy.equals(context.getString(R.string.settings_order_by_newest_value))) {
+            order = ArticleStore.Order.NEWEST_FIRST;
+        } else if (orderBy.equals(context.getString(R.string.settings_order_by_oldest_value))) {
+            order = ArticleStore.Order.OLDEST_FIRST;
+        }
+        String requestOrderBy = (order == null) ? orderBy : context.getString(R.string.settings_order_by_newest_value);
+
+        // one url per topic, the loader requests them concurrently and merges the results
+        List<String> urls = new ArrayList<>();
+        for (String topic : topics) {
+            urls.add(buildTopicUrl(topic, requestOrderBy));
+        }
+
+        return new FeedSettings(urls, order, pageCount, unmeteredOnly, chargingOnly);
+    }
+
+    // getters
+    public List<String> getTopicUrls() {
+        return mTopicUrls;
+    }
+    public ArticleStore.Order getOrder() {
+        return mOrder;
+    }
+    public int getInitialCount() {
+        return mInitialCount;
+    }
+    public boolean isSyncUnmeteredOnly() {
+        return mSyncUnmeteredOnly;
+    }
+    public boolean isSyncChargingOnly() {
+        return mSyncChargingOnly;
+    }
+
+    // a topic is a search term, or a Guardian section id prefixed with "section:" such as "section:travel"
+    private static String buildTopicUrl(String topic, String orderBy) {
+
+        // split URL String into constituent parts
+        Uri baseUri = Uri.parse(GUARDIAN_REQUEST_URL);
+
+        // prepare URI object for appending query parameters
+        Uri.Builder uriBuilder = baseUri.buildUpon();
+
+        // append query parameters, for example "q=Baja%20and%20surf"
+        uriBuilder.appendQueryParameter("order-by", orderBy);
+        if (topic.startsWith(SECTION_PREFIX)) {
+            uriBuilder.appendQueryParameter("section", topic.substring(SECTION_PREFIX.length()).trim());
+        } else {
+            uriBuilder.appendQueryParameter("q", topic);
+        }
+        uriBuilder.appendQueryParameter("page-size", String.valueOf(ArticleLoader.PAGE_SIZE));
+        uriBuilder.appendQueryParameter("show-tags", FEED_PROJECTION.getShowTags());
+        uriBuilder.appendQueryParameter("show-fields", FEED_PROJECTION.getShowFields());
+        uriBuilder.appendQueryParameter("api-key", GUARDIAN_API_KEY);
+
+        // convert completed URI to String
+        // for example "https://content.guardianapis.com/search?order-by=newest&q=Baja%20and%20surf&page-size=10"
+        return uriBuilder.toString();
+    }
+
+    // split the topics preference, blank and repeated entries are dropped
+    private static List<String> parseTopics(String value, String defaultValue) {
+        List<String> topics = new ArrayList<>();
+        for (String topic : value.split(",")) {
+            topic = topic.trim();
+            if (!topic.isEmpty() && !topics.contains(topic)) {
+                topics.add(topic);
+            }
+        }
+        if (topics.isEmpty()) {
+            topics.add(defaultValue);
+        }
+        return topics;
+    }
+
+    // the preference is free text, fall back to the default if it is not a whole number
+    private static int parseCount(String value, int defaultValue) {
+        try {
+            return (int) Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+}
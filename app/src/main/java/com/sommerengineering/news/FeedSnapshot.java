@@ -0,0 +1,83 @@
+package com.sommerengineering.news;
+
+import android.content.Context;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// the top of the last feed shown, small enough to read on the main thread so it is on screen in the first frame
+// the loader replaces it with the stored and requested articles as soon as they arrive
+// the articles are kept in the binary form of ArticleCodec, in a file and in the saved instance state
+final class FeedSnapshot {
+
+    // articles kept, about one screen and a half
+    static final int MAX_ARTICLES = 15;
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private FeedSnapshot() {}
+
+    // the snapshot can always be rebuilt, so it lives in the cache directory
+    static File getFile(Context context) {
+        return new File(context.getApplicationContext().getCacheDir(), "feed.snapshot");
+    }
+
+    // the first articles of the feed in binary form
+    static byte[] encode(List<Article> feed) {
+        return ArticleCodec.encode(feed.subList(0, Math.min(feed.size(), MAX_ARTICLES)));
+    }
+
+    // returns the saved articles, or an empty list if there is no snapshot or it cannot be read
+    static List<Article> decode(byte[] bytes) {
+        try {
+            return (bytes == null) ? new ArrayList<Article>() : ArticleCodec.decode(bytes);
+        } catch (IOException e) {
+
+            // a damaged snapshot is ignored, the loader still shows the feed
+            return new ArrayList<>();
+        }
+    }
+
+    static List<Article> read(File file) {
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, count);
+                }
+                return decode(bytes.toByteArray());
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    // save the first articles of the feed, replacing the previous snapshot atomically
+    static void write(File file, List<Article> feed) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(encode(feed));
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.sommerengineering.news;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+// the optional article fields a screen renders
+// one declaration builds the show-fields and show-tags query parameters and tells the parser which keys to read,
+// everything else is neither requested from the Guardian API nor materialized by the parser
+// sectionName, webPublicationDate and webUrl are part of every result and are always read
+public final class FieldProjection {
+
+    // optional fields, each maps to a show-fields name or a show-tags type
+    public enum Field {
+        HEADLINE("headline", null),
+        TRAIL_TEXT("trailText", null),
+        THUMBNAIL("thumbnail", null),
+        AUTHOR(null, "contributor");
+
+        private final String mShowField;
+        private final String mShowTag;
+
+        Field(String showField, String showTag) {
+            mShowField = showField;
+            mShowTag = showTag;
+        }
+    }
+
+    // every optional field
+    public static final FieldProjection ALL = new FieldProjection(Field.values());
+
+    // initialize state variable for the projected fields
+    private final Set<Field> mFields;
+
+    public FieldProjection(Field... fields) {
+        EnumSet<Field> set = EnumSet.noneOf(Field.class);
+        set.addAll(Arrays.asList(fields));
+        mFields = Collections.unmodifiableSet(set);
+    }
+
+    public boolean contains(Field field) {
+        return mFields.contains(field);
+    }
+
+    // value of the show-fields query parameter, for example "headline,thumbnail,trailText"
+    // empty if no show-fields are projected, in which case the parameter should be left out
+    public String getShowFields() {
+        StringBuilder showFields = new StringBuilder();
+        for (Field field : mFields) {
+            if (field.mShowField != null) {
+                if (showFields.length() > 0) {
+                    showFields.append(',');
+                }
+                showFields.append(field.mShowField);
+            }
+        }
+        return showFields.toString();
+    }
+
+    // value of the show-tags query parameter, empty if no tags are projected
+    public String getShowTags() {
+        StringBuilder showTags = new StringBuilder();
+        for (Field field : mFields) {
+            if (field.mShowTag != null) {
+                if (showTags.length() > 0) {
+                    showTags.append(',');
+                }
+                showTags.append(field.mShowTag);
+            }
+        }
+        return showTags.toString();
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.sommerengineering.news;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+// minimal HTTP GET abstraction behind QueryUtils and ImageLoader
+// implementations decide how connections are opened, pooled and compressed
+public interface HttpClient {
+
+    // perform a GET request with the given extra request headers, the caller must close the response
+    // cancelling the cancellation, which may be null, aborts the request from another thread and a blocked read
+    // of the body fails with an IOException
+    Response get(String url, Map<String, String> headers, Cancellation cancellation) throws IOException;
+
+    // status, headers and body of a single request
+    interface Response extends Closeable {
+
+        int getCode();
+
+        // returns null if the header is absent
+        String getHeader(String name);
+
+        // the decoded body, a compressed response is decompressed transparently
+        InputStream getBody() throws IOException;
+
+        // phases of the request, complete once the response is closed
+        RequestTiming getTiming();
+    }
+
+}
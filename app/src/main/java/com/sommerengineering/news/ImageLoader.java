@@ -0,0 +1,271 @@
+package com.sommerengineering.news;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// loads article thumbnails into ImageViews
+// decoded bitmaps are kept in a memory LRU, encoded bytes in a disk cache, and every image is
+// downsampled to the size of its view while decoding so memory stays flat however large the source is
+// all public methods must be called on the main thread
+public final class ImageLoader {
+
+    // simple tag for log messages
+    private static final String LOG_TAG = ImageLoader.class.getSimpleName();
+
+    // thumbnails never change once published, the disk copy is kept for a week
+    private static final long DISK_CACHE_TTL_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+    private static final long DISK_CACHE_MAX_BYTES = 10 * 1024 * 1024;
+
+    // decoded bitmaps may use up to this fraction of the heap available to the app
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    // downloads and decodes run off the main thread on a small pool
+    private static final int THREAD_COUNT = 2;
+
+    // single instance shared by all rows in the process
+    private static ImageLoader sInstance;
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final ArticleCache mDiskCache;
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(THREAD_COUNT);
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // requests in flight keyed by url and size, several views can wait on the same request
+    private final Map<String, Request> mRequests = new HashMap<>();
+
+    // the request each view is currently waiting on
+    private final Map<ImageView, Request> mViewRequests = new HashMap<>();
+
+    private ImageLoader(Context context) {
+
+        // size the memory cache in bytes of decoded bitmap data
+        int maxBytes = (int) (Runtime.getRuntime().maxMemory() / MEMORY_CACHE_FRACTION);
+        mMemoryCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+
+        // encoded bytes are stored with the same disk cache used for Guardian responses
+        File directory = new File(context.getApplicationContext().getCacheDir(), "thumbnails");
+        mDiskCache = new ArticleCache(directory, DISK_CACHE_MAX_BYTES, DISK_CACHE_TTL_MILLIS);
+    }
+
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ImageLoader(context);
+        }
+        return sInstance;
+    }
+
+    // show the image at the url in the view, the view's fixed layout size is the decode target
+    public void load(final String url, ImageView imageView) {
+
+        // a recycled row may still be waiting for the image of an earlier article
+        cancel(imageView);
+
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        final int width = params.width;
+        final int height = params.height;
+        final String key = url + '@' + width + 'x' + height;
+
+        // a bitmap already in memory is set immediately
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            imageView.setImageBitmap(bitmap);
+            return;
+        }
+        imageView.setImageDrawable(null);
+
+        // join a request for the same image that is already in flight
+        Request request = mRequests.get(key);
+        if (request == null) {
+            request = new Request(key);
+            mRequests.put(key, request);
+            final Request newRequest = request;
+            request.mFuture = mExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    final Bitmap decoded = loadInBackground(url, width, height, newRequest.mCancellation);
+                    mMainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            deliver(newRequest, decoded);
+                        }
+                    });
+                }
+            });
+        }
+        request.mViews.add(imageView);
+        mViewRequests.put(imageView, request);
+    }
+
+    // stop waiting for an image, the request itself is cancelled once no view is waiting on it
+    public void cancel(ImageView imageView) {
+        Request request = mViewRequests.remove(imageView);
+        if (request == null) {
+            return;
+        }
+        request.mViews.remove(imageView);
+        if (request.mViews.isEmpty()) {
+
+            // an interrupt does not unblock a socket read, closing the download does
+            request.mCancellation.cancel();
+            request.mFuture.cancel(true);
+            mRequests.remove(request.mKey);
+        }
+    }
+
+    // main thread, publish the bitmap to every view still waiting on the request
+    private void deliver(Request request, Bitmap bitmap) {
+
+        // the request was cancelled, or replaced by a new request for the same key
+        if (mRequests.get(request.mKey) != request) {
+            return;
+        }
+        mRequests.remove(request.mKey);
+
+        if (bitmap != null) {
+            mMemoryCache.put(request.mKey, bitmap);
+        }
+        for (ImageView imageView : request.mViews) {
+            mViewRequests.remove(imageView);
+            imageView.setImageBitmap(bitmap);
+        }
+    }
+
+    // background thread, returns the downsampled bitmap from disk or network, or null on failure
+    private Bitmap loadInBackground(String url, int width, int height, Cancellation cancellation) {
+        try {
+            byte[] bytes = readFromDisk(url);
+            if (bytes == null) {
+                bytes = download(url, cancellation);
+            }
+            if (bytes == null || cancellation.isCancelled()) {
+                return null;
+            }
+            return decode(bytes, width, height);
+        } catch (IOException e) {
+
+            // a cancelled download fails with the closed socket, which is not a problem
+            if (!cancellation.isCancelled()) {
+                Log.e(LOG_TAG, "Problem loading thumbnail " + url, e);
+            }
+            return null;
+        }
+    }
+
+    private byte[] readFromDisk(String url) throws IOException {
+        ArticleCache.Entry entry = mDiskCache.get(url);
+        if (entry == null || entry.isExpired()) {
+            return null;
+        }
+        InputStream inputStream = entry.openBody();
+        try {
+            return readFully(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    // fetch the encoded image over the shared pooled client and store it in the disk cache
+    private byte[] download(String url, Cancellation cancellation) throws IOException {
+
+        HttpClient.Response response = QueryUtils.getHttpClient().get(url, Collections.<String, String>emptyMap(),
+                cancellation);
+        try {
+            if (response.getCode() != HttpURLConnection.HTTP_OK) {
+                Log.e(LOG_TAG, "Error response code: " + response.getCode());
+                return null;
+            }
+            byte[] bytes = readFully(response.getBody());
+
+            ArticleCache.Editor editor = mDiskCache.edit(url, null, null);
+            try {
+                OutputStream out = editor.getOutputStream();
+                out.write(bytes);
+                editor.commit();
+            } finally {
+                editor.abort();
+            }
+            return bytes;
+        } finally {
+            response.close();
+        }
+    }
+
+    // decode at the largest power of two reduction that still covers the target size
+    static Bitmap decode(byte[] bytes, int width, int height) {
+
+        // read only the dimensions first
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+
+        // thumbnails have no transparency, half the memory of ARGB_8888
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+    }
+
+    static int calculateInSampleSize(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+        int inSampleSize = 1;
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return inSampleSize;
+        }
+        while (sourceWidth / (inSampleSize * 2) >= targetWidth && sourceHeight / (inSampleSize * 2) >= targetHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            output.write(buffer, 0, count);
+        }
+        return output.toByteArray();
+    }
+
+    // one decode shared by every view showing the same image at the same size
+    private static class Request {
+
+        private final String mKey;
+        private final List<ImageView> mViews = new ArrayList<>();
+
+        // closes the download once no view is waiting on it
+        private final Cancellation mCancellation = new Cancellation();
+        private Future<?> mFuture;
+
+        Request(String key) {
+            mKey = key;
+        }
+    }
+
+}
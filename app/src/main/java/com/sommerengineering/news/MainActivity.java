@@ -1,50 +1,104 @@
 package com.sommerengineering.news;
 
+import android.app.AlertDialog;
 import android.app.LoaderManager;
 import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.Loader;
 import android.content.SharedPreferences;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
+import android.support.v4.widget.SwipeRefreshLayout;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.util.Log;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
+import android.view.ViewTreeObserver;
 import android.widget.ProgressBar;
+import android.widget.SearchView;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<Article>> {
+public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<FeedResult>,
+        ArticleAdapter.OnArticleClickListener, SharedPreferences.OnSharedPreferenceChangeListener {
 
     // simple string tag for log messages
     public static final String LOG_TAG = MainActivity.class.getName();
 
-    // URL query returns JSON object representing news articles from The Guardian
-    private static final String GUARDIAN_REQUEST_URL =
-            "https://content.guardianapis.com/search";
-
     // constant value for the ID of the single article loader
     private static final int ARTICLE_LOADER_ID = 0;
 
+    // the next page is requested when the last visible row is this close to the end of the list
+    private static final int PREFETCH_DISTANCE = 5;
+
+    // search results shown at most
+    private static final int SEARCH_LIMIT = 100;
+
+    // saved instance state key of the top of the feed, shown again after the process was killed
+    private static final String STATE_SNAPSHOT = "snapshot";
+
     // define state variables to be initialized in onCreate()
+    private RecyclerView mRecyclerView;
     private ArticleAdapter mAdapter;
     private TextView mEmptyTextView;
     private ProgressBar mProgressBar;
+    private SwipeRefreshLayout mSwipeRefreshLayout;
+
+    // the last result delivered by the loader, shown again when a search is cleared
+    private FeedResult mFeedResult;
+
+    // the current search, empty when the feed is shown
+    private String mQuery = "";
+
+    // times onCreate() to the first frame drawn with articles, null once that frame is reported
+    private Metrics.Span mFirstContentSpan;
+
+    // urls of the last snapshot written, an unchanged top of the feed is not written again
+    private List<String> mSnapshotUrls = new ArrayList<>();
 
     // initialize options menu in Action Bar
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
 
-        // inflate menu
+        // inflate menu, the metrics screen is only offered in debug builds
         getMenuInflater().inflate(R.menu.main, menu);
+        menu.findItem(R.id.action_metrics).setVisible(BuildConfig.DEBUG);
+
+        // search as you type is answered by the index of the local store, no request is made
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                showSearch(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String query) {
+                showSearch(query);
+                return true;
+            }
+
+        });
         return true;
     }
 
@@ -64,6 +118,11 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
             return true;
         }
 
+        if (id == R.id.action_metrics) {
+            showMetrics();
+            return true;
+        }
+
         // call through to base class to perform the default menu handling
         return super.onOptionsItemSelected(item);
     }
@@ -72,164 +131,380 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
     protected void onCreate(Bundle savedInstanceState) {
 
         // super class constructor
+        mFirstContentSpan = Metrics.get().start(Metrics.FIRST_CONTENT);
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        // initialize an empty ArrayList to hold Earthquake objects
-        ArrayList<Article> articles = new ArrayList<>();
+        // find a reference to the RecyclerView, rows are laid out in a vertical list
+        final RecyclerView articleRecyclerView = (RecyclerView) findViewById(R.id.list);
+        mRecyclerView = articleRecyclerView;
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        articleRecyclerView.setLayoutManager(layoutManager);
+        articleRecyclerView.setHasFixedSize(true);
 
-        // find a reference to the ListView
-        ListView articleListView = (ListView) findViewById(R.id.list);
+        // simple divider line between rows
+        DividerItemDecoration divider = new DividerItemDecoration(this, DividerItemDecoration.VERTICAL);
+        divider.setDrawable(getResources().getDrawable(R.drawable.divider_list_item, getTheme()));
+        articleRecyclerView.addItemDecoration(divider);
 
-        // custom adapter populates ListView
-        mAdapter = new ArticleAdapter(this, articles);
-        articleListView.setAdapter(mAdapter);
+        // custom adapter populates RecyclerView, a click on a row opens the article
+        mAdapter = new ArticleAdapter(this);
+        articleRecyclerView.setAdapter(mAdapter);
 
         // define an empty view in the rare case no articles exist for the URL query parameters
         mEmptyTextView = (TextView) findViewById(R.id.empty_list);
-        articleListView.setEmptyView(mEmptyTextView);
 
         // define and display ProgressBar
         mProgressBar = (ProgressBar) findViewById(R.id.progress_bar);
 
-        // set an item click listener on the ListView items
-        articleListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // prefetch the next page in the background before the user reaches the end of the list
+        articleRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
 
-            // click opens up article source page for more detailed information
             @Override
-            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
 
-                // get current Earthquake object
-                Article currentArticle = mAdapter.getItem(position);
+                // an empty list has nothing to scroll through yet
+                int totalItemCount = layoutManager.getItemCount();
+                if (totalItemCount == 0
+                        || layoutManager.findLastVisibleItemPosition() < totalItemCount - 1 - PREFETCH_DISTANCE) {
+                    return;
+                }
 
-                // Uri object to pass into web browser Intent
-                String url = currentArticle.getUrl();
-                Uri articleUri = Uri.parse(url);
+                // the loader ignores this while a page is already loading or after the last page
+                Loader<FeedResult> loader = getLoaderManager().getLoader(ARTICLE_LOADER_ID);
+                if (loader instanceof ArticleLoader) {
+                    ((ArticleLoader) loader).loadNextPage();
+                }
+            }
 
-                // create Intent to open web browser
-                Intent websiteIntent = new Intent(Intent.ACTION_VIEW, articleUri);
+        });
 
-                // this conditional prevents the app from crashing by ensuring
-                // a web browser actually exists on the phone
-                if (websiteIntent.resolveActivity(getPackageManager()) != null) {
-                    startActivity(websiteIntent);
-                }
+        // pull-to-refresh asks the loader for only the articles published since the newest one shown
+        mSwipeRefreshLayout = (SwipeRefreshLayout) findViewById(R.id.swipe_refresh);
+        mSwipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
+
+            @Override
+            public void onRefresh() {
 
+                // the loader ignores this while a page is already loading, the spinner stops with that page
+                Loader<FeedResult> loader = getLoaderManager().getLoader(ARTICLE_LOADER_ID);
+                if (!(loader instanceof ArticleLoader) || !((ArticleLoader) loader).refresh()) {
+                    mSwipeRefreshLayout.setRefreshing(false);
+                }
             }
 
         });
 
-        // check status for internet connectivity
-        if (isConnected()) {
+        // the loader is started even without a connection, the last feed is shown from the local store
+        // and the empty state explains a missing connection once the requests have failed
+        LoaderManager loaderManager = getLoaderManager();
+
+        // on a fresh start the top of the last feed is shown in the first frame, before the loader has
+        // opened the store or read the settings, a loader kept across a configuration change redelivers instead
+        // an activity recreated after its process was killed shows the feed it had, otherwise the last one saved
+        if (loaderManager.getLoader(ARTICLE_LOADER_ID) == null) {
+            List<Article> snapshot = (savedInstanceState != null && savedInstanceState.containsKey(STATE_SNAPSHOT))
+                    ? FeedSnapshot.decode(savedInstanceState.getByteArray(STATE_SNAPSHOT))
+                    : FeedSnapshot.read(FeedSnapshot.getFile(this));
+            if (!snapshot.isEmpty()) {
+                mAdapter.submitList(snapshot);
+                mProgressBar.setVisibility(View.GONE);
+                reportFirstContent("snapshot");
+            }
+        }
 
-            // initialize a loader manager to handle a background thread
-            LoaderManager loaderManager = getLoaderManager();
+        // automatically calls onCreateLoader()
+        loaderManager.initLoader(ARTICLE_LOADER_ID, null, this);
 
-            // automatically calls onCreateLoader()
-            loaderManager.initLoader(ARTICLE_LOADER_ID, null, this);
+        // feed preferences changed in SettingsActivity are applied to the running loader
+        // registering does not wait for the preferences file to be read
+        PreferenceManager.getDefaultSharedPreferences(this).registerOnSharedPreferenceChangeListener(this);
 
-        }
-        else { // not connected to internet
+        // keep the followed topics fresh in the background, an identical pending job is left as it is
+        // scheduling reads the preferences and calls the system, neither is needed for the first frame
+        final Context context = getApplicationContext();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                SyncJobService.schedule(context);
+            }
 
-            // hide the progress bar
-            mProgressBar.setVisibility(View.GONE);
+        });
 
-            // the articles list is empty
-            mEmptyTextView.setText(R.string.no_internet_connection);
+    }
 
+    @Override
+    protected void onDestroy() {
+        PreferenceManager.getDefaultSharedPreferences(this).unregisterOnSharedPreferenceChangeListener(this);
+        super.onDestroy();
+    }
+
+    // called while this activity is stopped behind SettingsActivity, the preferences are already in memory
+    // a new order re-sorts the articles already loaded, a larger count loads only the missing pages
+    // and new topics reload the feed once the edits have settled
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (!key.equals(getString(R.string.settings_min_magnitude_key))
+                && !key.equals(getString(R.string.settings_order_by_key))
+                && !key.equals(getString(R.string.settings_topics_key))) {
+            return;
         }
+        Loader<FeedResult> loader = getLoaderManager().getLoader(ARTICLE_LOADER_ID);
+        if (loader instanceof ArticleLoader) {
+            ((ArticleLoader) loader).onSettingsChanged(FeedSettings.read(this));
+        }
+    }
 
+    // the few kilobytes of the top of the feed fit well within the limits of a saved state
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (mFeedResult != null && !mFeedResult.getArticles().isEmpty()) {
+            outState.putByteArray(STATE_SNAPSHOT, FeedSnapshot.encode(mFeedResult.getArticles()));
+        }
     }
 
     // automatically called when the loader manager determines that a loader with an id of
     // ARTICLE_LOADER_ID does not exist
     @Override
-    public Loader<List<Article>> onCreateLoader(int i, Bundle bundle) {
-
-        // get the hardcoded default preferences
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
+    public Loader<FeedResult> onCreateLoader(int i, Bundle bundle) {
 
-        // retrieve user preference for minimum magnitude
-        // a reference to the default preference is required by getString
-        String pageCountKey = getString(R.string.settings_min_magnitude_key);
-        String pageCountDefaultValue = getString(R.string.settings_min_magnitude_default);
-        String pageCount = sharedPrefs.getString(pageCountKey, pageCountDefaultValue);
-
-        // retrieve user preference for order-by
-        // a reference to the default preference is required by getString
-        String orderByKey = getString(R.string.settings_order_by_key);
-        String orderByDefaultValue = getString(R.string.settings_order_by_default);
-        String orderBy = sharedPrefs.getString(orderByKey, orderByDefaultValue);
-
-        // split URL String into constituent parts
-        Uri baseUri = Uri.parse(GUARDIAN_REQUEST_URL);
-
-        // prepare URI object for appending query parameters
-        Uri.Builder uriBuilder = baseUri.buildUpon();
-
-        // append query parameters, for example "format=geojson"
-        uriBuilder.appendQueryParameter("order-by", orderBy);
-        uriBuilder.appendQueryParameter("q", "Baja%20and%20surf");
-        uriBuilder.appendQueryParameter("page-size", pageCount);
-        uriBuilder.appendQueryParameter("show-tags", "contributor");
-        uriBuilder.appendQueryParameter("show-elements", "image");
-        uriBuilder.appendQueryParameter("show-fields", "headline,thumbnail,trailText");
-        uriBuilder.appendQueryParameter("api-key", "d34b30e0-7d4c-42c9-9bc4-0af20234ffc4");
-
-        // convert completed URI to String
-        // for example "https://earthquake.usgs.gov/fdsnws/event/1/query?format=geojson&limit=10&minmag=minMagnitude&orderby=orderBy"
-        String urlFromUri = uriBuilder.toString();
-
-        // pass concatenated URL to new loader
-        ArticleLoader loader = new ArticleLoader(this, urlFromUri);
-        return loader;
+        // the loader reads the followed topics, their order and the number of articles to show from the
+        // preferences on its own thread, it requests pages until the preferred count is shown
+        // later changes reach it through onSharedPreferenceChanged()
+        return new ArticleLoader(this, FeedSettings.FEED_PROJECTION);
 
     }
 
     // automatically called when loader background thread completes
     @Override
-    public void onLoadFinished(Loader<List<Article>> loader, List<Article> articles) {
-
-        // clear the adapter of any previous query to USGS database
-        mAdapter.clear();
+    public void onLoadFinished(Loader<FeedResult> loader, FeedResult result) {
+        Metrics.Span span = Metrics.get().start(Metrics.LOAD_FINISHED);
 
-        // hide the progress bar
+        // hide the progress bar and the pull-to-refresh spinner
         mProgressBar.setVisibility(View.GONE);
+        mSwipeRefreshLayout.setRefreshing(false);
+
+        // the results of a search in progress stay on screen, newly stored articles are matched too
+        mFeedResult = result;
+        if (!mQuery.isEmpty()) {
+            showSearch(mQuery);
+        } else {
+            showFeed(result);
+
+            // the saved articles on screen may be out of date
+            if (result != null && !result.isSuccessful() && !result.getArticles().isEmpty()) {
+                Toast.makeText(this, R.string.showing_saved_articles, Toast.LENGTH_SHORT).show();
+            }
+            if (result != null && !result.getArticles().isEmpty()) {
+                reportFirstContent("loader");
+                saveSnapshot(result.getArticles());
+            }
+        }
+        span.end();
+
+    }
+
+    // show the articles of a loader result, or explain why there are none
+    private void showFeed(FeedResult result) {
+
+        // a failed request may still carry stale cached articles
+        List<Article> articles = (result == null) ? null : result.getArticles();
+        boolean failed = (result != null) && !result.isSuccessful();
 
         // check the input exists and is not empty
         if (articles != null && !articles.isEmpty()) {
 
-            // calling addAll method on the adapter automatically triggers the ListView to update
-            mAdapter.addAll(articles);
+            // the adapter diffs the new list against the rows on screen in the background
+            // a newly loaded page only inserts its rows, unchanged rows are not rebound
+            mAdapter.submitList(articles);
+            mEmptyTextView.setVisibility(View.GONE);
         }
         else {
 
-            // this conditional handles the rare edge case of (1) successful network call (2) populate ListView
-            // (3) leave app (4) lose internet connection (5) return to app
-            if (isConnected()) {
+            // clear the adapter of any previous query to The Guardian
+            mAdapter.submitList(null);
+            mEmptyTextView.setVisibility(View.VISIBLE);
+
+            // nothing is stored yet and the requests failed because there is no internet connection
+            if (!isConnected()) {
+
+                // the articles list is empty because there is no internet connection
+                mEmptyTextView.setText(R.string.no_internet_connection);
+
+            }
+
+            // the request failed even after retries, or the API is failing and was not called
+            else if (failed) {
+                mEmptyTextView.setText(R.string.guardian_unavailable);
+            }
+
+            else {
 
                 // the articles list is empty because there are no articles matching the search criteria
                 mEmptyTextView.setText(R.string.no_articles_found);
+            }
+
+        }
+
+    }
 
+    // report the first frame drawn with rows, the source says whether they came from the snapshot or the loader
+    private void reportFirstContent(final String source) {
+        if (mFirstContentSpan == null) {
+            return;
+        }
+        final Metrics.Span span = mFirstContentSpan;
+        mFirstContentSpan = null;
+        mRecyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+
+            @Override
+            public boolean onPreDraw() {
+
+                // the submitted list is diffed or laid out before its rows exist
+                if (mRecyclerView.getChildCount() == 0) {
+                    return true;
+                }
+                mRecyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                long millis = span.end() / 1000000;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                    Log.i(LOG_TAG, "First content from the " + source + " after " + millis + " ms, "
+                            + (SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime()) + " ms since process start");
+                } else {
+                    Log.i(LOG_TAG, "First content from the " + source + " after " + millis + " ms");
+                }
+                return true;
             }
 
-            // internet connection was lost after a loader with ARTICLE_LOADER_ID was successfully completed
-            else {
+        });
+    }
 
-                // the articles list is empty because there is no internet connection
-                mEmptyTextView.setText(R.string.no_internet_connection);
+    // keep the top of the feed for the next start, written on a background thread in the order it was shown
+    private void saveSnapshot(final List<Article> feed) {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < Math.min(feed.size(), FeedSnapshot.MAX_ARTICLES); i++) {
+            urls.add(feed.get(i).getUrl());
+        }
+        if (urls.equals(mSnapshotUrls)) {
+            return;
+        }
+        mSnapshotUrls = urls;
+        final File file = FeedSnapshot.getFile(this);
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    FeedSnapshot.write(file, feed);
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem saving the feed snapshot.", e);
+                }
+            }
+
+        });
+    }
+
+    // show the stored articles matching the query, or the feed again once the query is cleared
+    private void showSearch(String query) {
+        mQuery = query.trim();
+        if (mQuery.isEmpty()) {
+
+            // nothing was loaded yet, the progress bar is still showing
+            if (mProgressBar.getVisibility() != View.VISIBLE) {
+                showFeed(mFeedResult);
             }
+            return;
+        }
+
+        // the store is opened by the loader's first pass, reading it can take a while so the search runs on a
+        // background thread, the serial executor keeps the queries in the order they were typed
+        final String search = mQuery;
+        final Context context = getApplicationContext();
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                final List<Article> matches = ArticleLoader.getStore(context).search(search, SEARCH_LIMIT);
+                runOnUiThread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        showMatches(search, matches);
+                    }
+
+                });
+            }
+
+        });
+    }
+
+    // a result for a query that has since been edited or cleared is dropped
+    private void showMatches(String search, List<Article> matches) {
+        if (isDestroyed() || !search.equals(mQuery)) {
+            return;
+        }
+        mAdapter.submitList(matches);
+        mEmptyTextView.setText(R.string.no_search_results);
+        mEmptyTextView.setVisibility(matches.isEmpty() ? View.VISIBLE : View.GONE);
+    }
+
+    // debug builds only, show the metrics recorded since the process started and offer to export them
+    private void showMetrics() {
+        String dump = Metrics.get().dump();
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.metrics_title)
+                .setMessage(dump.isEmpty() ? getString(R.string.metrics_empty) : dump)
+                .setPositiveButton(R.string.metrics_export, new DialogInterface.OnClickListener() {
+
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        exportMetrics();
+                    }
+
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    // the app's external files directory can be pulled with adb without root
+    private void exportMetrics() {
+        File directory = getExternalFilesDir(null);
+        File file = new File((directory != null) ? directory : getFilesDir(), "metrics.txt");
+        try {
+            Metrics.get().writeTo(file);
+            Toast.makeText(this, getString(R.string.metrics_exported, file.getPath()), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem exporting metrics.", e);
+        }
+    }
+
+    // click opens up article source page for more detailed information
+    @Override
+    public void onArticleClick(Article currentArticle) {
+
+        // Uri object to pass into web browser Intent
+        String url = currentArticle.getUrl();
+        Uri articleUri = Uri.parse(url);
+
+        // create Intent to open web browser
+        Intent websiteIntent = new Intent(Intent.ACTION_VIEW, articleUri);
 
+        // this conditional prevents the app from crashing by ensuring
+        // a web browser actually exists on the phone
+        if (websiteIntent.resolveActivity(getPackageManager()) != null) {
+            startActivity(websiteIntent);
         }
 
     }
 
     // previously created loader is no longer needed and existing data should be discarded
     @Override
-    public void onLoaderReset(Loader<List<Article>> loader) {
+    public void onLoaderReset(Loader<FeedResult> loader) {
 
-        // removing all data from adapter automatically clears the UI listview
-        mAdapter.clear();
+        // removing all data from adapter automatically clears the UI list
+        mFeedResult = null;
+        mAdapter.submitList(null);
 
     }
 
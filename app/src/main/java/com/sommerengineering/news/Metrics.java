@@ -0,0 +1,200 @@
+package com.sommerengineering.news;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// in-process registry of latency histograms and counters for the fetch, parse and render pipeline
+// recording is a couple of nanoTime() calls and an uncontended lock, cheap enough for every row bind
+// a text snapshot is shown in the debug screen and can be written to a file
+public class Metrics {
+
+    // spans, recorded in the histogram of the same name
+    static final String FIRST_CONTENT = "startup.first_content";
+    static final String LOADER_CREATE = "loader.create";
+    static final String LOADER_FETCH = "loader.fetch";
+    static final String LOADER_POST_PROCESS = "loader.post_process";
+    static final String LOADER_DELIVER = "loader.deliver";
+    static final String HTTP_DNS = "http.dns";
+    static final String HTTP_CONNECT = "http.connect";
+    static final String HTTP_TLS = "http.tls";
+    static final String HTTP_FIRST_BYTE = "http.first_byte";
+    static final String HTTP_BODY = "http.body";
+    static final String PARSE = "parse";
+    static final String LOAD_FINISHED = "ui.load_finished";
+    static final String BIND = "ui.bind";
+
+    // counters
+    static final String HTTP_REQUESTS = "http.requests";
+    static final String HTTP_REUSED_CONNECTIONS = "http.reused_connections";
+    static final String HTTP_BODY_BYTES = "http.body_bytes";
+    static final String PARSED_ARTICLES = "parse.articles";
+    static final String LOADER_CANCELLED = "loader.cancelled";
+    static final String MEMORY_CACHE_HITS = "memory_cache.hits";
+    static final String MEMORY_CACHE_MISSES = "memory_cache.misses";
+    static final String MEMORY_CACHE_EVICTIONS = "memory_cache.evictions";
+
+    // registry shared by the whole process
+    private static Metrics sInstance;
+
+    private final Map<String, Histogram> mHistograms = new TreeMap<>();
+    private final Map<String, Counter> mCounters = new TreeMap<>();
+
+    public static synchronized Metrics get() {
+        if (sInstance == null) {
+            sInstance = new Metrics();
+        }
+        return sInstance;
+    }
+
+    // histograms and counters live for the whole process, callers on a hot path may keep them
+    public synchronized Histogram histogram(String name) {
+        Histogram histogram = mHistograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            mHistograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    public synchronized Counter counter(String name) {
+        Counter counter = mCounters.get(name);
+        if (counter == null) {
+            counter = new Counter();
+            mCounters.put(name, counter);
+        }
+        return counter;
+    }
+
+    // start timing a span, its duration goes to the histogram of the same name when it ends
+    public Span start(String name) {
+        return histogram(name).start();
+    }
+
+    // one line per histogram and counter, sorted by name
+    public synchronized String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry : mHistograms.entrySet()) {
+            builder.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        for (Map.Entry<String, Counter> entry : mCounters.entrySet()) {
+            builder.append(entry.getKey()).append(' ').append(entry.getValue().get()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    // write the dump to a file, replacing an earlier export
+    public void writeTo(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+        try {
+            writer.write(dump());
+        } finally {
+            writer.close();
+        }
+    }
+
+    // monotonically increasing count, of bytes or articles for example
+    public static class Counter {
+
+        private final AtomicLong mValue = new AtomicLong();
+
+        public void add(long delta) {
+            mValue.addAndGet(delta);
+        }
+
+        public long get() {
+            return mValue.get();
+        }
+    }
+
+    // distribution of durations in power of two buckets of microseconds
+    // bucket i holds durations below 2^i microseconds, so percentiles are upper bounds within a factor of two
+    public static class Histogram {
+
+        private static final int BUCKET_COUNT = 40;
+
+        private final long[] mBuckets = new long[BUCKET_COUNT];
+        private long mCount;
+        private long mSumNanos;
+        private long mMaxNanos;
+
+        public synchronized void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+            mBuckets[bucket]++;
+            mCount++;
+            mSumNanos += nanos;
+            mMaxNanos = Math.max(mMaxNanos, nanos);
+        }
+
+        public Span start() {
+            return new Span(this);
+        }
+
+        public synchronized long getCount() {
+            return mCount;
+        }
+
+        public synchronized long getMeanNanos() {
+            return (mCount == 0) ? 0 : mSumNanos / mCount;
+        }
+
+        public synchronized long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        // upper bound of the duration below which the given fraction of the recorded spans fall
+        public synchronized long getPercentileNanos(double fraction) {
+            long rank = (long) Math.ceil(fraction * mCount);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                seen += mBuckets[bucket];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(mMaxNanos, (1L << bucket) * 1000);
+                }
+            }
+            return mMaxNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(Locale.US, "count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                    mCount, millis(getMeanNanos()), millis(getPercentileNanos(0.5)),
+                    millis(getPercentileNanos(0.9)), millis(getPercentileNanos(0.99)), millis(mMaxNanos));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1000000.0;
+        }
+    }
+
+    // a running timer, only the first end() is recorded
+    public static class Span {
+
+        private final Histogram mHistogram;
+        private final long mStart = System.nanoTime();
+        private boolean mEnded;
+
+        Span(Histogram histogram) {
+            mHistogram = histogram;
+        }
+
+        // returns the duration in nanoseconds
+        public long end() {
+            long nanos = System.nanoTime() - mStart;
+            if (!mEnded) {
+                mEnded = true;
+                mHistogram.record(nanos);
+            }
+            return nanos;
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.sommerengineering.news;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+// HttpClient backed by OkHttp
+// keeps idle connections in a pool across requests, negotiates HTTP/2 over TLS where the server supports it,
+// requests gzip and decompresses it transparently, and reports the phases of every request
+public class PooledHttpClient implements HttpClient {
+
+    // default timeouts, matching the previous HttpURLConnection settings
+    private static final int CONNECT_TIMEOUT_MILLIS = 15000;
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+
+    // initialize state variable for the OkHttp client, which owns the connection pool
+    private final OkHttpClient mClient;
+
+    public PooledHttpClient() {
+        this(new ConnectionPool(), CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS);
+    }
+
+    public PooledHttpClient(ConnectionPool connectionPool, int connectTimeoutMillis, int readTimeoutMillis) {
+        mClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .eventListenerFactory(new EventListener.Factory() {
+                    @Override
+                    public EventListener create(Call call) {
+                        return new TimingListener(call.request().tag(RequestTiming.class));
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public HttpClient.Response get(String url, Map<String, String> headers, Cancellation cancellation)
+            throws IOException {
+
+        // the timing travels with the request so the event listener can find it
+        RequestTiming timing = new RequestTiming(true);
+        Request.Builder request = new Request.Builder().url(url).tag(RequestTiming.class, timing);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            request.header(header.getKey(), header.getValue());
+        }
+
+        // cancelling the call closes its stream, whether it is still connecting or already reading the body
+        final Call call = mClient.newCall(request.build());
+        Closeable abort = new Closeable() {
+            @Override
+            public void close() {
+                call.cancel();
+            }
+        };
+        if (cancellation != null) {
+            cancellation.register(abort);
+        }
+
+        timing.markStart();
+        try {
+            return new Response(call.execute(), timing, cancellation, abort);
+        } catch (IOException e) {
+            if (cancellation != null) {
+                cancellation.unregister(abort);
+            }
+            throw e;
+        }
+    }
+
+    // wraps the OkHttp response, closing it returns the connection to the pool
+    private static class Response implements HttpClient.Response {
+
+        private final okhttp3.Response mResponse;
+        private final RequestTiming mTiming;
+        private final Cancellation mCancellation;
+        private final Closeable mAbort;
+
+        Response(okhttp3.Response response, RequestTiming timing, Cancellation cancellation, Closeable abort) {
+            mResponse = response;
+            mTiming = timing;
+            mCancellation = cancellation;
+            mAbort = abort;
+        }
+
+        @Override
+        public int getCode() {
+            return mResponse.code();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return mResponse.header(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            ResponseBody body = mResponse.body();
+            if (body == null) {
+                throw new IOException("Response has no body");
+            }
+            return body.byteStream();
+        }
+
+        @Override
+        public RequestTiming getTiming() {
+            return mTiming;
+        }
+
+        @Override
+        public void close() {
+            mResponse.close();
+            mTiming.markEnd();
+            if (mCancellation != null) {
+                mCancellation.unregister(mAbort);
+            }
+        }
+    }
+
+    // records OkHttp call events into the request's timing
+    private static class TimingListener extends EventListener {
+
+        private final RequestTiming mTiming;
+
+        TimingListener(RequestTiming timing) {
+            mTiming = (timing == null) ? new RequestTiming(true) : timing;
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            mTiming.markDnsStart();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            mTiming.markDnsEnd();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            mTiming.markConnectStart();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            mTiming.markConnectEnd();
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                                  IOException ioe) {
+            mTiming.markConnectEnd();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            mTiming.markTlsStart();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            mTiming.markTlsEnd();
+        }
+
+        // the headers have been read once the status line and headers arrived, responseHeadersStart
+        // fires as soon as the request is written and would leave out the server's time
+        @Override
+        public void responseHeadersEnd(Call call, okhttp3.Response response) {
+            mTiming.markFirstByte();
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            mTiming.markEnd();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            mTiming.markEnd();
+        }
+    }
+
+}
@@ -1,10 +1,12 @@
 package com.sommerengineering.news;
 
 import android.util.Log;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import java.io.BufferedReader;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -12,7 +14,16 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 // helper methods related to requesting and receiving news article data from The Guardian API
 public final class QueryUtils {
@@ -20,31 +31,275 @@ public final class QueryUtils {
     // simple tag for log messages
     private static final String LOG_TAG = QueryUtils.class.getSimpleName();
 
+    // shared by every request so connections are pooled, replaceable for tests
+    private static HttpClient sHttpClient;
+
+    // HttpURLConnection has no constant for 429
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    // a request is tried at most three times, waiting up to 0.5 s and then 1 s before the retries
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_RETRY_DELAY_MILLIS = 500;
+    private static final long MAX_RETRY_DELAY_MILLIS = 4000;
+
+    // after three consecutive failed fetches no request is made for a minute
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 3;
+    private static final long CIRCUIT_OPEN_MILLIS = 60 * 1000;
+
+    // the quota of the Guardian developer key
+    private static final int RATE_LIMIT_PER_SECOND = 12;
+    private static final int RATE_LIMIT_PER_DAY = 5000;
+
+    // resilience policy shared by every request, replaceable for tests
+    private static RetryPolicy sRetryPolicy;
+    private static CircuitBreaker sCircuitBreaker;
+    private static RateLimiter sRateLimiter;
+
+    // concurrent fetches of the same query share one request
+    private static SingleFlight sSingleFlight;
+
     // constructor is deliberately empty as no objects of this class will ever exist
     private QueryUtils() {}
 
-    // query the The Guardian database and return an ArrayList of Article objects
-    // this is the only public method in this class, used by AsyncTaskLoader in ArticleLoader
-    public static ArrayList<Article> fetchArticleData(String requestUrl) {
+    // the client used for all Guardian API and thumbnail requests
+    public static synchronized HttpClient getHttpClient() {
+        if (sHttpClient == null) {
+            sHttpClient = new PooledHttpClient();
+        }
+        return sHttpClient;
+    }
+
+    static synchronized void setHttpClient(HttpClient httpClient) {
+        sHttpClient = httpClient;
+    }
+
+    // a few quick retries, a longer Retry-After is not waited out on the loader thread
+    public static synchronized RetryPolicy getRetryPolicy() {
+        if (sRetryPolicy == null) {
+            sRetryPolicy = new RetryPolicy(MAX_ATTEMPTS, BASE_RETRY_DELAY_MILLIS, MAX_RETRY_DELAY_MILLIS, new Random());
+        }
+        return sRetryPolicy;
+    }
+
+    static synchronized void setRetryPolicy(RetryPolicy retryPolicy) {
+        sRetryPolicy = retryPolicy;
+    }
+
+    // one breaker for the Guardian API shared by every loader in the process
+    public static synchronized CircuitBreaker getCircuitBreaker() {
+        if (sCircuitBreaker == null) {
+            sCircuitBreaker = new CircuitBreaker(CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_MILLIS, Clock.SYSTEM);
+        }
+        return sCircuitBreaker;
+    }
+
+    static synchronized void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        sCircuitBreaker = circuitBreaker;
+    }
+
+    // one quota for the api key shared by every request in the process
+    public static synchronized RateLimiter getRateLimiter() {
+        if (sRateLimiter == null) {
+            sRateLimiter = new RateLimiter(RATE_LIMIT_PER_SECOND, RATE_LIMIT_PER_DAY, Clock.SYSTEM);
+        }
+        return sRateLimiter;
+    }
+
+    static synchronized void setRateLimiter(RateLimiter rateLimiter) {
+        sRateLimiter = rateLimiter;
+    }
+
+    public static synchronized SingleFlight getSingleFlight() {
+        if (sSingleFlight == null) {
+            sSingleFlight = new SingleFlight();
+        }
+        return sSingleFlight;
+    }
+
+    // query the The Guardian database and return the Articles with the outcome of the request
+    public static FeedResult fetchArticleData(String requestUrl, ArticleCache cache, FieldProjection projection) {
+        return fetchArticleData(requestUrl, cache, projection, null);
+    }
+
+    // this is the entry point of this class, used by the fetch stage of ArticleLoader
+    // the cache is optional, when it exists the request is revalidated against the cached response
+    // the projection must match the show-fields and show-tags parameters of the url
+    // transient failures are retried with backoff, if the request still fails the stale cached articles are returned
+    // with the failure status, while the circuit breaker is open no request is made at all
+    // a cancelled request is neither retried nor counted against the API
+    // the loader, a settings change and the background sync asking for the same query at once share one request
+    public static FeedResult fetchArticleData(final String requestUrl, final ArticleCache cache,
+            final FieldProjection projection, Cancellation cancellation) {
+        return getSingleFlight().run(requestUrl, cancellation, new SingleFlight.Fetch() {
+            @Override
+            public FeedResult run(Cancellation flightCancellation) {
+                return fetchWithRetries(requestUrl, cache, projection, flightCancellation);
+            }
+        });
+    }
+
+    private static FeedResult fetchWithRetries(String requestUrl, ArticleCache cache, FieldProjection projection,
+            Cancellation cancellation) {
 
         // transform url string to URL object
         URL url = createUrl(requestUrl);
+        if (url == null) {
+            return new FeedResult(FeedResult.Status.MALFORMED_RESPONSE, null, -1, 0);
+        }
+
+        // a previous response for this url, if any, provides the validators and the fallback articles
+        ArticleCache.Entry entry = (cache == null) ? null : cache.get(url.toString());
+
+        // the API has been failing, do not add to its load and show what is cached
+        CircuitBreaker circuitBreaker = getCircuitBreaker();
+        if (!circuitBreaker.allowRequest()) {
+            Log.e(LOG_TAG, "Circuit open, skipping request.");
+            return withCachedArticles(new FeedResult(FeedResult.Status.CIRCUIT_OPEN, null, -1, 0), entry);
+        }
+
+        // a trial request of the half-open breaker that records no outcome, cancelled, refused by the quota or
+        // answered with a client error, is released so the breaker does not wait on it forever
+        try {
+
+            // perform HTTP request to the URL and stream the relevant fields of the JSON response into a list of Articles
+            RetryPolicy retryPolicy = getRetryPolicy();
+            RateLimiter rateLimiter = getRateLimiter();
+            FeedResult result;
+            for (int attempt = 0; ; attempt++) {
+
+                // a Retry-After the server sent earlier is waited out first, unless it is too long to block the
+                // loader thread, it is reported like a 429 but never counted against the API again
+                long retryMillis = rateLimiter.getMillisUntilRetry();
+                if (!retryPolicy.canWait(retryMillis)) {
+                    Log.e(LOG_TAG, "Server asked to retry later, skipping request.");
+                    return withCachedArticles(
+                            new FeedResult(FeedResult.Status.RATE_LIMITED, null, -1, retryMillis), entry);
+                }
+                if (!sleep(retryMillis, cancellation)) {
+                    return FeedResult.cancelled();
+                }
+
+                // every attempt, retries included, is within the api key quota
+                // the day's quota being used up is reported like a 429 but never counted against the API
+                long waitMillis = rateLimiter.reserve();
+                if (waitMillis < 0) {
+                    Log.e(LOG_TAG, "Daily request quota used up, skipping request.");
+                    return withCachedArticles(new FeedResult(FeedResult.Status.RATE_LIMITED, null, -1,
+                            rateLimiter.getMillisUntilReset()), entry);
+                }
+                if (!sleep(waitMillis, cancellation)) {
+                    return FeedResult.cancelled();
+                }
+
+                result = makeHttpRequest(url, cache, entry, projection, cancellation);
+                if (result.isSuccessful()) {
+                    circuitBreaker.recordSuccess();
+                    return result;
+                }
+                if (cancellation != null && cancellation.isCancelled()) {
+                    return FeedResult.cancelled();
+                }
+                if (result.getRetryAfterMillis() > 0) {
+                    rateLimiter.retryAfter(result.getRetryAfterMillis());
+                }
+
+                // wait out the backoff or the server's Retry-After, unless it is too long to block the loader thread
+                long delayMillis = retryPolicy.getDelayMillis(attempt, result.getRetryAfterMillis());
+                if (!result.isRetryable() || attempt + 1 >= retryPolicy.getMaxAttempts() || !retryPolicy.canWait(delayMillis)) {
+                    break;
+                }
+                Log.d(LOG_TAG, "Retrying in " + delayMillis + " ms after " + result.getStatus());
+                if (!sleep(delayMillis, cancellation)) {
 
-        // initialize raw JSON string to null
-        String jsonResponse = null;
+                    // the loader was cancelled, which says nothing about the API
+                    return FeedResult.cancelled();
+                }
+            }
 
-        // perform HTTP request to the URL and receive a JSON response back
+            // only server and network failures count against the API, a malformed response would not improve with backoff
+            if (result.isRetryable()) {
+                circuitBreaker.recordFailure();
+            }
+
+            // a stale cached response is better than nothing when the network request fails
+            return withCachedArticles(result, entry);
+        } finally {
+            circuitBreaker.releaseTrial();
+        }
+    }
+
+    // wait before a request, returns false at once if the load is cancelled or the thread interrupted meanwhile
+    private static boolean sleep(long millis, Cancellation cancellation) {
+        if (millis <= 0) {
+            return true;
+        }
+
+        // the cancellation wakes the wait the same way it aborts a request in flight
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        Closeable wakeUp = new Closeable() {
+            @Override
+            public void close() {
+                cancelled.countDown();
+            }
+        };
+        if (cancellation != null) {
+            cancellation.register(wakeUp);
+        }
         try {
-            jsonResponse = makeHttpRequest(url);
+            return !cancelled.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (cancellation != null) {
+                cancellation.unregister(wakeUp);
+            }
+        }
+    }
+
+    // attach the articles of the cache entry to a failed result
+    private static FeedResult withCachedArticles(FeedResult result, ArticleCache.Entry entry) {
+        if (entry == null) {
+            return result;
+        }
+        return result.withArticles(readCachedArticles(entry));
+    }
+
+    // decode the articles held by a cache entry, an entry that cannot be decoded is a miss and gives no articles
+    public static ArrayList<Article> readCachedArticles(ArticleCache.Entry entry) {
+
+        // initialize an empty ArrayList
+        ArrayList<Article> articles = new ArrayList<>();
+
+        InputStream inputStream = null;
+        try {
+            inputStream = entry.openBody();
+            articles.addAll(ArticleCodec.decode(readFully(inputStream)));
         } catch (IOException e) {
-            Log.e(LOG_TAG, "Error closing input stream.", e);
+            Log.e(LOG_TAG, "Problem reading the cached article results.", e);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Error closing cache stream.", e);
+                }
+            }
         }
 
-        // extract relevant fields from the JSON response and create a list of Articles
-        ArrayList<Article> articles = extractArticlesFromJSON(jsonResponse);
         return articles;
     }
 
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            output.write(buffer, 0, count);
+        }
+        return output.toByteArray();
+    }
+
     // returns URL object from a given string URL
     private static URL createUrl(String stringUrl) {
 
@@ -58,147 +313,327 @@ public final class QueryUtils {
         return url;
     }
 
-    // Make an HTTP request to the given URL and return the response string
-    private static String makeHttpRequest(URL url) throws IOException {
+    // Make a single HTTP request to the given URL and return the Articles parsed from the response
+    private static FeedResult makeHttpRequest(URL url, ArticleCache cache, ArticleCache.Entry entry,
+            FieldProjection projection, Cancellation cancellation) {
 
-        // initialize raw JSON string to empty
-        String jsonResponse = "";
-
-        // if the URL is null then return early
-        if (url == null) {
-            return jsonResponse;
+        // ask the server to reply 304 with no body if the cached response is still current
+        Map<String, String> headers = new HashMap<>();
+        if (entry != null) {
+            if (!entry.getETag().isEmpty()) {
+                headers.put("If-None-Match", entry.getETag());
+            }
+            if (!entry.getLastModified().isEmpty()) {
+                headers.put("If-Modified-Since", entry.getLastModified());
+            }
         }
 
-        // initialize objects for connection and stream
-        HttpURLConnection urlConnection = null;
-        InputStream inputStream = null;
+        // initialize object for response
+        HttpClient.Response response = null;
+
+        // set to the outcome once a response is received
+        int responseCode = -1;
 
         try {
 
-            // open connection, set timeouts, set request method, connect
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setReadTimeout(10000); // milliseconds
-            urlConnection.setConnectTimeout(15000); // milliseconds
-            urlConnection.setRequestMethod("GET");
-            urlConnection.connect();
+            // the shared client reuses pooled connections and negotiates gzip and HTTP/2
+            // a cancelled load aborts the request, the parser then fails on the closed stream
+            response = getHttpClient().get(url.toString(), headers, cancellation);
 
             // check response code of HTTP request
-            // 200 means success
-            if (urlConnection.getResponseCode() == 200) {
-                inputStream = urlConnection.getInputStream();
-                jsonResponse = readFromStream(inputStream);
+            // 200 means success, 304 means the cached response is unchanged
+            responseCode = response.getCode();
+            if (responseCode == HttpURLConnection.HTTP_OK) {
+
+                // parse directly from the socket, the raw JSON response is never held in memory
+                CountingInputStream body = new CountingInputStream(response.getBody());
+                ArrayList<Article> articles = extractArticlesFromStream(body, projection);
+
+                // the cache keeps the parsed articles in binary form, so a cache hit is not parsed as JSON again
+                // only a completely parsed response is committed
+                if (cache != null) {
+                    writeCache(cache, url.toString(), response, articles);
+                }
+                Metrics.get().counter(Metrics.HTTP_BODY_BYTES).add(body.getCount());
+                return FeedResult.ok(articles);
+
+            } else if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+
+                // restart the time-to-live and use the cached body
+                try {
+                    cache.markValidated(url.toString(), entry);
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem revalidating the cached article results.", e);
+                }
+                return FeedResult.ok(readCachedArticles(entry));
+
             } else {
 
                 // log HTTP response code
-                Log.e(LOG_TAG, "Error response code: " + urlConnection.getResponseCode());
+                Log.e(LOG_TAG, "Error response code: " + responseCode);
+
+                // 429 and 503 may say how long to back off
+                long retryAfterMillis = parseRetryAfter(response.getHeader("Retry-After"), System.currentTimeMillis());
+                FeedResult.Status status = (responseCode == HTTP_TOO_MANY_REQUESTS)
+                        ? FeedResult.Status.RATE_LIMITED : FeedResult.Status.HTTP_ERROR;
+                return new FeedResult(status, null, responseCode, retryAfterMillis);
 
             }
 
-        // IOException is thrown by getInputStream() if something goes wrong parsing the characters
-        } catch (IOException e) {
+        // IOException is thrown if the connection fails, or by the parser if the JSON is malformed
+        } catch (IOException | IllegalStateException e) {
 
             // log exception stack trace
             Log.e(LOG_TAG, "Problem retrieving the article JSON results.", e);
 
-        // disconnect from url and close stream
+            // a parser error is a broken body, anything else is a connection problem worth retrying
+            boolean malformed = e instanceof IllegalStateException || e instanceof MalformedJsonException;
+            FeedResult.Status status = malformed ? FeedResult.Status.MALFORMED_RESPONSE : FeedResult.Status.NETWORK_ERROR;
+            return new FeedResult(status, null, responseCode, 0);
+
+        // closing the response returns the connection to the pool
         } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
-            }
-            if (inputStream != null) {
-                inputStream.close();
+            if (response != null) {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Error closing response.", e);
+                }
+                Log.d(LOG_TAG, withoutApiKey(url.toString()) + " " + response.getTiming());
+                response.getTiming().recordTo(Metrics.get());
             }
         }
+    }
 
-        // return data type is String
-        return jsonResponse;
+    // the url as it may be logged, with the api key left out of its query
+    static String withoutApiKey(String url) {
+        return url.replaceAll("([?&])api-key=[^&]*&?", "$1").replaceAll("[?&]$", "");
     }
 
-    // Convert the InputStream into a String which contains the entire raw JSON response
-    private static String readFromStream(InputStream inputStream) throws IOException {
+    // a disk that cannot take the entry loses the cache, not the articles that were already received
+    private static void writeCache(ArticleCache cache, String url, HttpClient.Response response, ArrayList<Article> articles) {
+        ArticleCache.Editor editor = null;
+        try {
+            editor = cache.edit(url, response.getHeader("ETag"), response.getHeader("Last-Modified"));
+            editor.getOutputStream().write(ArticleCodec.encode(articles));
+            editor.commit();
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem writing the article results to the cache.", e);
+        } finally {
+            if (editor != null) {
+                editor.abort();
+            }
+        }
+    }
 
-        // StringBuilder is mutable, a convenient way to construct Strings
-        StringBuilder output = new StringBuilder();
+    // Retry-After is either a number of seconds or an HTTP date, returns zero if missing or unreadable
+    static long parseRetryAfter(String value, long now) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            // not a number of seconds, try the date form
+        }
+        SimpleDateFormat httpDate = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, httpDate.parse(value.trim()).getTime() - now);
+        } catch (ParseException e) {
+            Log.e(LOG_TAG, "Unreadable Retry-After: " + value);
+            return 0;
+        }
+    }
 
-        // check that inputStream exists
-        if (inputStream != null) {
+    // Return a list of Article objects pulled token by token from a JSON response stream
+    // only response.results[] is descended into, every key outside the projection is skipped without being materialized
+    static ArrayList<Article> extractArticlesFromStream(InputStream inputStream, FieldProjection projection) throws IOException {
 
-            // define character set as UTF-8
-            // this is at the byte level where each byte defines a single character
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
+        // initialize an empty ArrayList
+        ArrayList<Article> articles = new ArrayList<>();
 
-            // parsing a line of characters is much faster than one at a time
-            BufferedReader reader = new BufferedReader(inputStreamReader);
-            String line = reader.readLine();
+        // check that inputStream exists
+        if (inputStream == null) {
+            return articles;
+        }
 
-            // append lines to StringBuilder while there are still lines left to read
-            while (line != null) {
-                output.append(line);
-                line = reader.readLine();
+        // a body streamed from the socket includes the time spent waiting for its bytes
+        Metrics.Span span = Metrics.get().start(Metrics.PARSE);
+
+        // define character set as UTF-8, the reader buffers internally so no BufferedReader is needed
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+
+        // go down two levels of JSON payload
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("response")) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("results")) {
+
+                        // loop through all results (results = news articles)
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            articles.add(readArticle(reader, projection));
+                        }
+                        reader.endArray();
+
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
             }
         }
+        reader.endObject();
 
-        // convert mutable StringBuilder to immutable String
-        return output.toString();
-    }
-
+        // a response that failed to parse is not recorded
+        span.end();
+        Metrics.get().counter(Metrics.PARSED_ARTICLES).add(articles.size());
 
-    // Return a list of Earthquake objects built up from parsing a JSON response.
-    private static ArrayList<Article> extractArticlesFromJSON(String jsonResponse) {
+        // return the list of news articles
+        return articles;
+    }
 
-        // initialize an empty ArrayList
-        ArrayList<Article> articles = new ArrayList<>();
+    // build a single Article from the current result object
+    private static Article readArticle(JsonReader reader, FieldProjection projection) throws IOException {
+
+        // attributes are empty if the key is missing from the JSON metadata
+        String section = "";
+        String date = "";
+        String url = "";
+        String title = "";
+        String body = "";
+        String thumbnail = "";
+
+        // not all articles contain an author name
+        String[] author = {"", ""};
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "sectionName":
+                    section = nextString(reader);
+                    break;
+                case "webPublicationDate":
+                    date = nextString(reader);
+                    break;
+                case "webUrl":
+                    url = nextString(reader);
+                    break;
+                case "fields":
+
+                    // base keys
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        if (name.equals("headline") && projection.contains(FieldProjection.Field.HEADLINE)) {
+                            title = nextString(reader);
+                        } else if (name.equals("trailText") && projection.contains(FieldProjection.Field.TRAIL_TEXT)) {
+                            body = nextString(reader);
+                        } else if (name.equals("thumbnail") && projection.contains(FieldProjection.Field.THUMBNAIL)) {
+                            thumbnail = nextString(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "tags":
+
+                    // only the first contributor tag is used
+                    reader.beginArray();
+                    if (reader.hasNext() && projection.contains(FieldProjection.Field.AUTHOR)) {
+                        author = readAuthor(reader);
+                    }
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-        // Try to parse the raw jsonResponse String
-        try {
+        // add data to new Article object, the HTML tags of the trailText are rendered when its row is about to be shown
+        return new Article(title, body, author[0], author[1], date, section, url, thumbnail);
+    }
 
-            // go down two levels of JSON payload
-            JSONObject root = new JSONObject(jsonResponse);
-            JSONObject response = root.getJSONObject("response");
-            JSONArray results = response.getJSONArray("results");
+    // returns the first and last name of a contributor tag
+    private static String[] readAuthor(JsonReader reader) throws IOException {
+
+        String firstName = "";
+        String lastName = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "firstName":
+                    firstName = nextString(reader);
+                    break;
+                case "lastName":
+                    lastName = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-            // loop through all results (results = news articles)
-            for (int i = 0; i < results.length(); i++) {
+        return new String[] {firstName, lastName};
+    }
 
-                // current news article
-                JSONObject currentResult = results.getJSONObject(i);
+    // JSON null values are treated the same as a missing key
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        return reader.nextString();
+    }
 
-                // base keys
-                JSONObject fields = currentResult.getJSONObject("fields");
+    // counts the bytes read from the wrapped stream
+    private static class CountingInputStream extends FilterInputStream {
 
-                // get desired attributes from JSON key : value pairs
-                String section = currentResult.getString("sectionName");
-                String date = currentResult.getString("webPublicationDate");
-                String url = currentResult.getString("webUrl");
-                String title = fields.getString("headline");
-                String body = fields.getString("trailText");
+        private long mCount;
 
-                // not all articles contain an author name
-                String firstName;
-                String lastName;
-                try {
-                    JSONObject tags = currentResult.getJSONArray("tags").getJSONObject(0);
-                    firstName = tags.getString("firstName");
-                    lastName = tags.getString("lastName");
-                }
-                catch (JSONException e) {
-                    firstName = "";
-                    lastName = "";
-                }
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
 
-                // add data to new Article object and store in ArrayList
-                articles.add(new Article(title, body, firstName, lastName, date, section, url));
+        long getCount() {
+            return mCount;
+        }
 
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                mCount++;
             }
+            return b;
+        }
 
-        } catch (JSONException e) {
-
-            // log exception stack trace
-            Log.e(LOG_TAG, "Problem parsing the article JSON results.", e);
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                mCount += count;
+            }
+            return count;
         }
 
-        // return the list of news articles
-        return articles;
+        @Override
+        public long skip(long n) throws IOException {
+            long count = super.skip(n);
+            mCount += count;
+            return count;
+        }
     }
 
 }
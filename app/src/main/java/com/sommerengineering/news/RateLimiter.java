@@ -0,0 +1,72 @@
+package com.sommerengineering.news;
+
+// keeps requests within the Guardian API key quota, so the server never has to answer 429 Too Many Requests
+// per second: requests are spaced evenly at the quota rate, a burst of up to one second's worth goes out at once
+// per day: once the day's calls are used up no request is made until the quota resets at midnight UTC
+// the daily count lives in memory, a new process starts counting again
+// a Retry-After from the server holds back every request until it has passed
+public class RateLimiter {
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // state variables defined in the constructor
+    private final double mIntervalMillis;
+    private final double mBurstMillis;
+    private final int mPerDay;
+    private final Clock mClock;
+
+    // the time the next request would be sent if requests were spaced exactly at the quota rate
+    private double mNextSlot;
+
+    // the UTC day being counted and the requests reserved in it
+    private long mDay = -1;
+    private int mDayCount;
+
+    // no request should be sent before this time, set by the server's Retry-After
+    private long mRetryAt;
+
+    public RateLimiter(int perSecond, int perDay, Clock clock) {
+        mIntervalMillis = 1000.0 / perSecond;
+        mBurstMillis = (perSecond - 1) * mIntervalMillis;
+        mPerDay = perDay;
+        mClock = clock;
+    }
+
+    // reserve a request, returns how many milliseconds the caller must wait before sending it
+    // returns -1 without reserving anything if the daily quota is used up
+    public synchronized long reserve() {
+        long now = mClock.currentTimeMillis();
+
+        long day = now / DAY_MILLIS;
+        if (day != mDay) {
+            mDay = day;
+            mDayCount = 0;
+        }
+        if (mDayCount >= mPerDay) {
+            return -1;
+        }
+        mDayCount++;
+
+        // a slot in the past is idle capacity, the burst allowance lets requests run ahead of the even spacing
+        double slot = Math.max(mNextSlot, now);
+        mNextSlot = slot + mIntervalMillis;
+        return (long) Math.ceil(Math.max(0, slot - mBurstMillis - now));
+    }
+
+    // a later Retry-After extends the wait, an earlier one never shortens it
+    public synchronized void retryAfter(long retryAfterMillis) {
+        mRetryAt = Math.max(mRetryAt, mClock.currentTimeMillis() + retryAfterMillis);
+    }
+
+    // time until the server's Retry-After has passed, zero if there is none
+    public synchronized long getMillisUntilRetry() {
+        return Math.max(0, mRetryAt - mClock.currentTimeMillis());
+    }
+
+    // time until the daily quota resets
+    public synchronized long getMillisUntilReset() {
+        long now = mClock.currentTimeMillis();
+        return DAY_MILLIS - now % DAY_MILLIS;
+    }
+
+}
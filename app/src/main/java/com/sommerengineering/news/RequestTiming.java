@@ -0,0 +1,122 @@
+package com.sommerengineering.news;
+
+import java.util.Locale;
+
+// durations of the phases of a single HTTP request
+// a phase that did not happen, for example DNS and connect on a reused connection, reports -1
+// phases are recorded by the thread that executes the request
+public class RequestTiming {
+
+    // false for clients that never see connects, the HttpURLConnection client, connection reuse is then unknown
+    private final boolean mReportsConnects;
+
+    // System.nanoTime() at each event, zero if the event did not happen
+    private long mStart;
+    private long mDnsStart;
+    private long mDnsEnd;
+    private long mConnectStart;
+    private long mConnectEnd;
+    private long mTlsStart;
+    private long mTlsEnd;
+    private long mFirstByte;
+    private long mEnd;
+
+    RequestTiming(boolean reportsConnects) {
+        mReportsConnects = reportsConnects;
+    }
+
+    // called by HttpClient implementations as the request progresses
+    void markStart() {
+        mStart = System.nanoTime();
+    }
+    void markDnsStart() {
+        mDnsStart = System.nanoTime();
+    }
+    void markDnsEnd() {
+        mDnsEnd = System.nanoTime();
+    }
+    void markConnectStart() {
+        mConnectStart = System.nanoTime();
+    }
+    void markConnectEnd() {
+        mConnectEnd = System.nanoTime();
+    }
+    void markTlsStart() {
+        mTlsStart = System.nanoTime();
+    }
+    void markTlsEnd() {
+        mTlsEnd = System.nanoTime();
+    }
+    void markFirstByte() {
+        if (mFirstByte == 0) {
+            mFirstByte = System.nanoTime();
+        }
+    }
+    void markEnd() {
+        if (mEnd == 0) {
+            mEnd = System.nanoTime();
+        }
+    }
+
+    // getters, in milliseconds
+    public long getDnsMillis() {
+        return between(mDnsStart, mDnsEnd);
+    }
+    public long getConnectMillis() {
+        return between(mConnectStart, mConnectEnd);
+    }
+    public long getTlsMillis() {
+        return between(mTlsStart, mTlsEnd);
+    }
+    public long getFirstByteMillis() {
+        return between(mStart, mFirstByte);
+    }
+    public long getBodyMillis() {
+        return between(mFirstByte, mEnd);
+    }
+    public long getTotalMillis() {
+        return between(mStart, mEnd);
+    }
+
+    // add the phases that happened to the latency histograms, in nanoseconds
+    // reused connections are only counted for clients that report connects
+    void recordTo(Metrics metrics) {
+        record(metrics, Metrics.HTTP_DNS, mDnsStart, mDnsEnd);
+        record(metrics, Metrics.HTTP_CONNECT, mConnectStart, mConnectEnd);
+        record(metrics, Metrics.HTTP_TLS, mTlsStart, mTlsEnd);
+        record(metrics, Metrics.HTTP_FIRST_BYTE, mStart, mFirstByte);
+        record(metrics, Metrics.HTTP_BODY, mFirstByte, mEnd);
+        metrics.counter(Metrics.HTTP_REQUESTS).add(1);
+        if (isConnectionReused()) {
+            metrics.counter(Metrics.HTTP_REUSED_CONNECTIONS).add(1);
+        }
+    }
+
+    private static void record(Metrics metrics, String name, long start, long end) {
+        if (start != 0 && end != 0) {
+            metrics.histogram(name).record(end - start);
+        }
+    }
+
+    // true if no new connection was opened for this request
+    // false when it is not known, see reportsConnects()
+    public boolean isConnectionReused() {
+        return mReportsConnects && mStart != 0 && mConnectStart == 0;
+    }
+
+    // true if the client reports connect events, so isConnectionReused() is known
+    public boolean reportsConnects() {
+        return mReportsConnects;
+    }
+
+    private static long between(long start, long end) {
+        return (start == 0 || end == 0) ? -1 : (end - start) / 1000000;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "dns=%dms connect=%dms tls=%dms firstByte=%dms body=%dms total=%dms",
+                getDnsMillis(), getConnectMillis(), getTlsMillis(), getFirstByteMillis(), getBodyMillis(), getTotalMillis());
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.sommerengineering.news;
+
+import java.util.Random;
+
+// bounded retries with exponential backoff and full jitter
+// the wait before retry n is a random time up to min(maxDelay, baseDelay * 2^n), which keeps many clients
+// that failed together from retrying together, a server's Retry-After always takes precedence
+public class RetryPolicy {
+
+    // state variables defined in the constructor
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+    private final Random mRandom;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, Random random) {
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+        mRandom = random;
+    }
+
+    // total number of attempts including the first
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    // the wait after the given zero-based failed attempt, a positive retryAfterMillis comes from the server
+    public long getDelayMillis(int attempt, long retryAfterMillis) {
+        if (retryAfterMillis > 0) {
+            return retryAfterMillis;
+        }
+        long ceiling = Math.min(mMaxDelayMillis, mBaseDelayMillis << Math.min(attempt, 30));
+        return (long) (mRandom.nextDouble() * ceiling);
+    }
+
+    // a longer wait is not spent blocking the loader thread, the request fails and cached data is shown
+    public boolean canWait(long delayMillis) {
+        return delayMillis <= mMaxDelayMillis;
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.sommerengineering.news;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// in-memory inverted index over the headline, trail text, author and section of articles
+// every article gets an int document id, each term maps to a growable int array of the ids containing it
+// a query is a list of words, all must match, each as a prefix of an indexed term so it works while typing
+public class SearchIndex {
+
+    // a replaced or removed article leaves its old id in the postings, they are rebuilt once dead ids dominate
+    private static final int COMPACTION_MIN_DEAD = 1024;
+
+    // term dictionary, sorted so a prefix is a contiguous range
+    private final TreeMap<String, Postings> mTerms = new TreeMap<>();
+
+    // document id to article, and the live id of every url
+    private final List<Article> mDocuments = new ArrayList<>();
+    private final Map<String, Integer> mIds = new HashMap<>();
+
+    // ids no longer live
+    private final BitSet mDead = new BitSet();
+    private int mDeadCount;
+
+    // add an article, replacing any earlier version with the same url
+    public synchronized void add(Article article) {
+        remove(article.getUrl());
+
+        int id = mDocuments.size();
+        mDocuments.add(article);
+        mIds.put(article.getUrl(), id);
+
+        // a term repeated within the article is posted once, ids only ever grow so every array stays sorted
+        for (String term : terms(article)) {
+            Postings postings = mTerms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                mTerms.put(term, postings);
+            }
+            postings.add(id);
+        }
+    }
+
+    public synchronized void remove(String url) {
+        Integer id = mIds.remove(url);
+        if (id == null) {
+            return;
+        }
+        mDead.set(id);
+        mDocuments.set(id, null);
+        mDeadCount++;
+        if (mDeadCount >= COMPACTION_MIN_DEAD && mDeadCount > mIds.size()) {
+            compact();
+        }
+    }
+
+    // articles matching every word of the query, newest first, at most limit of them
+    public synchronized List<Article> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        BitSet matches = null;
+        for (String word : words) {
+            BitSet wordMatches = new BitSet(mDocuments.size());
+            SortedMap<String, Postings> range = mTerms.subMap(word, word + Character.MAX_VALUE);
+            for (Postings postings : range.values()) {
+                for (int i = 0; i < postings.mSize; i++) {
+                    wordMatches.set(postings.mIds[i]);
+                }
+            }
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.and(wordMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        matches.andNot(mDead);
+
+        // keep the newest limit matches in a heap whose head is the oldest of them
+        // most matches lose a single comparison against the head, so no full sort of a broad query is needed
+        PriorityQueue<Article> newest = new PriorityQueue<>(Math.max(1, limit), ArticleMerger.OLDEST_FIRST);
+        for (int id = matches.nextSetBit(0); id >= 0 && limit > 0; id = matches.nextSetBit(id + 1)) {
+            Article article = mDocuments.get(id);
+            if (newest.size() < limit) {
+                newest.add(article);
+            } else if (ArticleMerger.OLDEST_FIRST.compare(article, newest.peek()) > 0) {
+                newest.poll();
+                newest.add(article);
+            }
+        }
+        List<Article> articles = new ArrayList<>(newest);
+        Collections.sort(articles, ArticleMerger.NEWEST_FIRST);
+        return articles;
+    }
+
+    // number of live articles
+    public synchronized int size() {
+        return mIds.size();
+    }
+
+    // number of distinct terms
+    public synchronized int termCount() {
+        return mTerms.size();
+    }
+
+    // reassign dense ids to the live articles and rebuild the postings
+    private void compact() {
+        List<Article> live = new ArrayList<>(mIds.size());
+        for (Article article : mDocuments) {
+            if (article != null) {
+                live.add(article);
+            }
+        }
+        mTerms.clear();
+        mDocuments.clear();
+        mIds.clear();
+        mDead.clear();
+        mDeadCount = 0;
+        for (Article article : live) {
+            add(article);
+        }
+    }
+
+    // the distinct terms of the searchable fields of an article
+    private static List<String> terms(Article article) {
+        List<String> terms = new ArrayList<>();
+        tokenize(article.getTitle(), terms);
+        tokenize(article.getTrailText(), terms);
+        tokenize(article.getFirstName(), terms);
+        tokenize(article.getLastName(), terms);
+        tokenize(article.getSection(), terms);
+        Collections.sort(terms);
+        List<String> distinct = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).equals(term)) {
+                distinct.add(term);
+            }
+        }
+        return distinct;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        tokenize(text, words);
+        return words;
+    }
+
+    // lower case runs of letters and digits, text inside HTML tags is skipped
+    private static void tokenize(String text, List<String> words) {
+        StringBuilder word = new StringBuilder();
+        boolean inTag = false;
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = (i < length) ? text.charAt(i) : ' ';
+            if (inTag) {
+                inTag = c != '>';
+            } else if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+                continue;
+            } else if (c == '<') {
+                inTag = true;
+            }
+            if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+    }
+
+    // sorted document ids of one term, a plain int array with spare capacity
+    private static class Postings {
+
+        private int[] mIds = new int[2];
+        private int mSize;
+
+        void add(int id) {
+            if (mSize == mIds.length) {
+                mIds = Arrays.copyOf(mIds, mSize + (mSize >> 1) + 1);
+            }
+            mIds[mSize++] = id;
+        }
+    }
+
+}
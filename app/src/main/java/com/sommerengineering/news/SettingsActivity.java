@@ -20,7 +20,8 @@ public class SettingsActivity extends AppCompatActivity {
         setContentView(R.layout.settings_activity);
     }
 
-    public static class ArticlePreferenceFragment extends PreferenceFragment implements Preference.OnPreferenceChangeListener {
+    public static class ArticlePreferenceFragment extends PreferenceFragment
+            implements Preference.OnPreferenceChangeListener, SharedPreferences.OnSharedPreferenceChangeListener {
 
         @Override
         public void onCreate(Bundle savedInstanceState) {
@@ -28,23 +29,48 @@ public class SettingsActivity extends AppCompatActivity {
             // initialize fragment with superclass constructor
             super.onCreate(savedInstanceState);
 
-            // layout has a root PreferenceScreen with children EditTextPreference and ListPreference
+            // layout has a root PreferenceScreen with children EditTextPreferences and ListPreference
             addPreferencesFromResource(R.xml.settings_main);
 
             // get preference key Strings
             String pageCountKey = getString(R.string.settings_min_magnitude_key);
+            String topicsKey = getString(R.string.settings_topics_key);
             String orderByKey = getString(R.string.settings_order_by_key);
 
             // get the preference Objects associated with these keys
             Preference pageCount = findPreference(pageCountKey);
+            Preference topics = findPreference(topicsKey);
             Preference orderBy = findPreference(orderByKey);
 
             // set listeners on these preferences
             bindPreferenceSummaryToValue(pageCount);
+            bindPreferenceSummaryToValue(topics);
             bindPreferenceSummaryToValue(orderBy);
 
         }
 
+        // the sync conditions are watched once saved, onPreferenceChange runs before the new value is stored
+        @Override
+        public void onResume() {
+            super.onResume();
+            getPreferenceScreen().getSharedPreferences().registerOnSharedPreferenceChangeListener(this);
+        }
+
+        @Override
+        public void onPause() {
+            getPreferenceScreen().getSharedPreferences().unregisterOnSharedPreferenceChangeListener(this);
+            super.onPause();
+        }
+
+        // reschedule the background sync with its new conditions
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+            if (key.equals(getString(R.string.settings_sync_unmetered_key))
+                    || key.equals(getString(R.string.settings_sync_charging_key))) {
+                SyncJobService.schedule(getActivity());
+            }
+        }
+
         private void bindPreferenceSummaryToValue(Preference preference) {
 
             // set listener on the preference
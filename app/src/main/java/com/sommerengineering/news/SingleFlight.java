@@ -0,0 +1,146 @@
+package com.sommerengineering.news;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+// coalesces concurrent fetches of the same query into one request and one parse
+// the first caller for a key runs the fetch on its own thread, callers arriving while it runs wait for its result
+// keys are normalized urls, so urls differing only in parameter order or api key share a flight
+// a waiting caller can be cancelled on its own, the shared request is aborted only once every caller has cancelled
+// an aborted flight is never joined, a caller arriving while it unwinds starts a new one
+public class SingleFlight {
+
+    // the fetch run by the first caller
+    public interface Fetch {
+        FeedResult run(Cancellation cancellation);
+    }
+
+    // flights in progress keyed by normalized url
+    private final Map<String, Flight> mFlights = new HashMap<>();
+
+    // number of callers that joined a flight instead of starting a request, for measuring
+    private long mSharedCount;
+
+    // run the fetch, or wait for the one already running for an equivalent url
+    // the cancellation may be null, a cancelled caller gets a cancelled result
+    public FeedResult run(String url, Cancellation cancellation, Fetch fetch) {
+        String key = ArticleMemoryCache.normalize(url);
+
+        final Flight flight;
+        boolean first;
+        synchronized (this) {
+            Flight running = mFlights.get(key);
+            first = running == null || !running.join();
+            if (first) {
+                flight = new Flight();
+                flight.join();
+                mFlights.put(key, flight);
+            } else {
+                flight = running;
+                mSharedCount++;
+            }
+        }
+
+        // cancelling this caller withdraws it from the flight
+        Closeable withdraw = new Closeable() {
+            @Override
+            public void close() {
+                flight.withdraw();
+            }
+        };
+        if (cancellation != null) {
+            cancellation.register(withdraw);
+        }
+
+        try {
+            if (first) {
+                FeedResult result = FeedResult.cancelled();
+                try {
+                    result = fetch.run(flight.mCancellation);
+                } finally {
+                    synchronized (this) {
+                        if (mFlights.get(key) == flight) {
+                            mFlights.remove(key);
+                        }
+                    }
+                    flight.complete(result);
+                }
+            }
+            return flight.await(cancellation);
+        } finally {
+            if (cancellation != null) {
+                cancellation.unregister(withdraw);
+            }
+        }
+    }
+
+    public synchronized int getInFlightCount() {
+        return mFlights.size();
+    }
+
+    public synchronized long getSharedCount() {
+        return mSharedCount;
+    }
+
+    // one request shared by every caller of the same key
+    private static class Flight {
+
+        // aborts the shared request, cancelled once no caller is left waiting
+        private final Cancellation mCancellation = new Cancellation();
+
+        private int mCallers;
+        private boolean mAbandoned;
+        private boolean mDone;
+        private FeedResult mResult;
+
+        // false once every caller has withdrawn, the request is then being aborted
+        synchronized boolean join() {
+            if (mAbandoned) {
+                return false;
+            }
+            mCallers++;
+            return true;
+        }
+
+        synchronized void complete(FeedResult result) {
+            mResult = result;
+            mDone = true;
+            notifyAll();
+        }
+
+        // called from the thread cancelling a caller
+        void withdraw() {
+            boolean abandoned;
+            synchronized (this) {
+                mCallers--;
+                abandoned = mCallers == 0 && !mDone;
+                mAbandoned |= abandoned;
+                notifyAll();
+            }
+            if (abandoned) {
+                mCancellation.cancel();
+            }
+        }
+
+        // the shared result, or a cancelled result as soon as the caller is cancelled or interrupted
+        synchronized FeedResult await(Cancellation cancellation) {
+            while (!mDone) {
+                if (cancellation != null && cancellation.isCancelled()) {
+                    return FeedResult.cancelled();
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return FeedResult.cancelled();
+                }
+            }
+            if (cancellation != null && cancellation.isCancelled()) {
+                return FeedResult.cancelled();
+            }
+            return mResult;
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.sommerengineering.news;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.os.BatteryManager;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.util.Log;
+import java.util.List;
+
+// prefetches the first page of every followed topic in the background
+// responses go into the disk cache and the local store, so opening the app shows fresh articles without waiting
+public class SyncJobService extends JobService {
+
+    // simple tag for log messages
+    private static final String LOG_TAG = SyncJobService.class.getSimpleName();
+
+    // ID of the single periodic sync job
+    private static final int SYNC_JOB_ID = 1;
+
+    // the system runs the job about this often, never more often than the minimum interval
+    private static final long SYNC_INTERVAL_MILLIS = 60 * 60 * 1000;
+    private static final long MIN_SYNC_INTERVAL_MILLIS = 15 * 60 * 1000;
+
+    // topics requested together, the same as the number of request threads
+    private static final int BATCH_SIZE = 4;
+
+    // the last sync time survives the process in its own preferences file
+    private static final String PREFS_NAME = "sync";
+    private static final String LAST_SYNC_KEY = "last_sync_at";
+
+    // one policy per process so triggers from overlapping jobs are coalesced
+    private static SyncPolicy sPolicy;
+
+    // the sync in progress, interrupted if the system stops the job
+    private Thread mThread;
+
+    // aborts the requests of the sync in progress, an interrupt does not reach a blocked socket read
+    private Cancellation mCancellation;
+
+    // schedule the periodic sync with the conditions from the preferences
+    // an identical job that is already pending is left alone so its period is not restarted
+    public static void schedule(Context context) {
+        FeedSettings settings = FeedSettings.read(context);
+        int networkType = settings.isSyncUnmeteredOnly() ? JobInfo.NETWORK_TYPE_UNMETERED : JobInfo.NETWORK_TYPE_ANY;
+
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        for (JobInfo pending : scheduler.getAllPendingJobs()) {
+            if (pending.getId() == SYNC_JOB_ID && pending.getNetworkType() == networkType
+                    && pending.isRequireCharging() == settings.isSyncChargingOnly()) {
+                return;
+            }
+        }
+
+        JobInfo job = new JobInfo.Builder(SYNC_JOB_ID, new ComponentName(context, SyncJobService.class))
+                .setPeriodic(SYNC_INTERVAL_MILLIS)
+                .setRequiredNetworkType(networkType)
+                .setRequiresCharging(settings.isSyncChargingOnly())
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+
+        // only the conditions change, a sync that is running keeps the policy from starting another
+        synchronized (SyncJobService.class) {
+            if (sPolicy != null) {
+                sPolicy.setConstraints(settings.isSyncUnmeteredOnly(), settings.isSyncChargingOnly());
+            }
+        }
+    }
+
+    private static synchronized SyncPolicy getPolicy(Context context) {
+        if (sPolicy == null) {
+            FeedSettings settings = FeedSettings.read(context);
+            long lastSyncAt = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(LAST_SYNC_KEY, 0);
+            sPolicy = new SyncPolicy(Clock.SYSTEM, MIN_SYNC_INTERVAL_MILLIS, BATCH_SIZE,
+                    settings.isSyncUnmeteredOnly(), settings.isSyncChargingOnly(), lastSyncAt);
+        }
+        return sPolicy;
+    }
+
+    // called on the main thread, the requests run on a background thread
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+
+        // older releases may start a periodic job without checking its conditions
+        final SyncPolicy policy = getPolicy(this);
+        if (!policy.tryStart(isUnmetered(), isCharging())) {
+            Log.d(LOG_TAG, "Sync skipped, last sync at " + policy.getLastSyncAt());
+            return false;
+        }
+
+        mCancellation = new Cancellation();
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                boolean success = sync(policy);
+                policy.finish(success);
+                if (success) {
+                    getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                            .putLong(LAST_SYNC_KEY, policy.getLastSyncAt()).apply();
+                }
+
+                // a failed sync is retried with the system's backoff
+                jobFinished(params, !success);
+            }
+        }, LOG_TAG);
+        mThread.start();
+        return true;
+    }
+
+    // the conditions no longer hold, stop the requests and have the job rescheduled
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        if (mThread != null) {
+            mCancellation.cancel();
+            mThread.interrupt();
+        }
+        return true;
+    }
+
+    // request the first page of each topic, one batch at a time, returns false if any request failed
+    private boolean sync(SyncPolicy policy) {
+        FeedSettings settings = FeedSettings.read(this);
+        final boolean[] success = {true};
+        try {
+            for (List<String> batch : policy.batch(settings.getTopicUrls())) {
+                FanOut.run(ArticleLoader.getExecutor(), batch, new FanOut.Task<String, FeedResult>() {
+                    @Override
+                    public FeedResult run(String url) {
+                        return ArticleLoader.fetchPage(SyncJobService.this, ArticleLoader.pageUrl(url, 1),
+                                FeedSettings.FEED_PROJECTION, mCancellation);
+                    }
+                }, new FanOut.Callback<String, FeedResult>() {
+                    @Override
+                    public void onResult(String url, FeedResult result, int remaining) {
+                        if (!result.isSuccessful()) {
+                            Log.e(LOG_TAG, "Sync failed for " + url + ": " + result.getStatus());
+                            success[0] = false;
+                        }
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            return false;
+        }
+        return success[0];
+    }
+
+    private boolean isUnmetered() {
+        ConnectivityManager connectivityManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        return !connectivityManager.isActiveNetworkMetered();
+    }
+
+    private boolean isCharging() {
+        Intent battery = registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        return battery != null && battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+}
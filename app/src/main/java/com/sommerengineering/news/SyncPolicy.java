@@ -0,0 +1,84 @@
+package com.sommerengineering.news;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// decides whether a background sync may run now and how its requests are grouped
+// kept free of Android types so the scheduling rules can be tested with a fake clock
+public class SyncPolicy {
+
+    // state variables defined in the constructor
+    private final Clock mClock;
+    private final long mMinIntervalMillis;
+    private final int mBatchSize;
+
+    // the conditions the user configured, changed in place so a running sync is not forgotten
+    private boolean mUnmeteredOnly;
+    private boolean mChargingOnly;
+
+    // time the last successful sync finished, zero if there has been none
+    private long mLastSyncAt;
+
+    // set while a sync is running
+    private boolean mRunning;
+
+    public SyncPolicy(Clock clock, long minIntervalMillis, int batchSize, boolean unmeteredOnly, boolean chargingOnly,
+            long lastSyncAt) {
+        mClock = clock;
+        mMinIntervalMillis = minIntervalMillis;
+        mBatchSize = batchSize;
+        mUnmeteredOnly = unmeteredOnly;
+        mChargingOnly = chargingOnly;
+        mLastSyncAt = lastSyncAt;
+    }
+
+    // the user changed the conditions, the running sync and the last sync time are kept
+    public synchronized void setConstraints(boolean unmeteredOnly, boolean chargingOnly) {
+        mUnmeteredOnly = unmeteredOnly;
+        mChargingOnly = chargingOnly;
+    }
+
+    // true if the device state meets the conditions the user configured
+    public synchronized boolean constraintsMet(boolean unmetered, boolean charging) {
+        return (unmetered || !mUnmeteredOnly) && (charging || !mChargingOnly);
+    }
+
+    // a trigger that arrives while a sync is running, or soon after one finished, is coalesced into it
+    public synchronized boolean tryStart(boolean unmetered, boolean charging) {
+        if (mRunning || !constraintsMet(unmetered, charging) || getDelayUntilDueMillis() > 0) {
+            return false;
+        }
+        mRunning = true;
+        return true;
+    }
+
+    // a failed sync is not recorded, so the next trigger runs it again
+    public synchronized void finish(boolean success) {
+        mRunning = false;
+        if (success) {
+            mLastSyncAt = mClock.currentTimeMillis();
+        }
+    }
+
+    public synchronized long getLastSyncAt() {
+        return mLastSyncAt;
+    }
+
+    // zero once the minimum interval since the last successful sync has passed
+    public synchronized long getDelayUntilDueMillis() {
+        if (mLastSyncAt == 0) {
+            return 0;
+        }
+        return Math.max(0, mLastSyncAt + mMinIntervalMillis - mClock.currentTimeMillis());
+    }
+
+    // split the requests into batches that are sent together, one batch at a time
+    public <T> List<List<T>> batch(List<T> requests) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int start = 0; start < requests.size(); start += mBatchSize) {
+            batches.add(new ArrayList<>(requests.subList(start, Math.min(start + mBatchSize, requests.size()))));
+        }
+        return batches;
+    }
+
+}
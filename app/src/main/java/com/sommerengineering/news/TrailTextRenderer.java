@@ -0,0 +1,194 @@
+package com.sommerengineering.news;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Html;
+import android.util.LruCache;
+import android.widget.TextView;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// renders the HTML trail text of articles into styled text on a background thread
+// only the rows about to be shown are rendered, the results are kept in an LRU keyed by article url
+// a row bound before its text is rendered shows the text with the tags stripped and is updated once it is ready
+// all public methods must be called on the main thread
+public final class TrailTextRenderer {
+
+    // about ten screens of rows, a rendered trail text is a few hundred bytes
+    private static final int CACHE_MAX_ENTRIES = 100;
+
+    // single instance shared by all rows in the process
+    private static TrailTextRenderer sInstance;
+
+    private final LruCache<String, Rendered> mCache = new LruCache<>(CACHE_MAX_ENTRIES);
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // urls queued for rendering, an article is never queued twice
+    private final Set<String> mPending = new HashSet<>();
+
+    // the url whose text each view is waiting on
+    private final Map<TextView, String> mViews = new HashMap<>();
+
+    // the single instance is created by getInstance()
+    private TrailTextRenderer() {}
+
+    public static synchronized TrailTextRenderer getInstance() {
+        if (sInstance == null) {
+            sInstance = new TrailTextRenderer();
+        }
+        return sInstance;
+    }
+
+    // show the trail text of the article in the view, styled if it is rendered, otherwise plain until it is
+    public void bind(Article article, TextView textView) {
+        CharSequence rendered = get(article);
+        if (rendered != null) {
+            mViews.remove(textView);
+            textView.setText(rendered);
+            return;
+        }
+        textView.setText(plainText(article.getTrailText()));
+        mViews.put(textView, article.getUrl());
+        render(article);
+    }
+
+    // a recycled row no longer waits for the text of its previous article
+    public void cancel(TextView textView) {
+        mViews.remove(textView);
+    }
+
+    // render ahead of the rows being shown
+    public void prefetch(List<Article> articles) {
+        for (Article article : articles) {
+            prefetch(article);
+        }
+    }
+
+    public void prefetch(Article article) {
+        if (get(article) == null) {
+            render(article);
+        }
+    }
+
+    // the rendered text, or null if it is not rendered yet or the article's text has changed since
+    CharSequence get(Article article) {
+        String trailText = article.getTrailText();
+        if (trailText.isEmpty()) {
+            return trailText;
+        }
+        Rendered rendered = mCache.get(article.getUrl());
+        return (rendered != null && rendered.mSource.equals(trailText)) ? rendered.mText : null;
+    }
+
+    private void render(Article article) {
+        final String url = article.getUrl();
+        final String source = article.getTrailText();
+        if (source.isEmpty() || !mPending.add(url)) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Rendered rendered = new Rendered(source, render(source));
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(url, rendered);
+                    }
+                });
+            }
+        });
+    }
+
+    // main thread, replace the plain text of every view still showing the article
+    private void deliver(String url, Rendered rendered) {
+        mPending.remove(url);
+        mCache.put(url, rendered);
+        Iterator<Map.Entry<TextView, String>> views = mViews.entrySet().iterator();
+        while (views.hasNext()) {
+            Map.Entry<TextView, String> view = views.next();
+            if (view.getValue().equals(url)) {
+                view.getKey().setText(rendered.mText);
+                views.remove();
+            }
+        }
+    }
+
+    // background thread, the HTML tags of the trail text rendered as styles
+    @SuppressWarnings("deprecation")
+    static CharSequence render(String trailText) {
+        CharSequence text = Html.fromHtml(trailText);
+        return (text == null) ? plainText(trailText) : text;
+    }
+
+    // the text with its tags dropped and the common entities decoded, cheap enough for a bind
+    static String plainText(String html) {
+        if (html.indexOf('<') < 0 && html.indexOf('&') < 0) {
+            return html;
+        }
+        StringBuilder text = new StringBuilder(html.length());
+        int length = html.length();
+        for (int i = 0; i < length; i++) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                int end = html.indexOf('>', i);
+                if (end < 0) {
+                    break;
+                }
+                i = end;
+            } else if (c == '&') {
+                int end = html.indexOf(';', i);
+                String entity = (end < 0 || end - i > 6) ? null : decodeEntity(html.substring(i + 1, end));
+                if (entity == null) {
+                    text.append(c);
+                } else {
+                    text.append(entity);
+                    i = end;
+                }
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+
+    private static String decodeEntity(String name) {
+        switch (name) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "#39":
+            case "apos":
+                return "'";
+            case "nbsp":
+                return "\u00a0";
+            default:
+                return null;
+        }
+    }
+
+    // a rendered text and the HTML it was rendered from
+    private static class Rendered {
+
+        private final String mSource;
+        private final CharSequence mText;
+
+        Rendered(String source, CharSequence text) {
+            mSource = source;
+            mText = text;
+        }
+    }
+
+}
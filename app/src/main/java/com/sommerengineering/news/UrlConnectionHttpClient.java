@@ -0,0 +1,139 @@
+package com.sommerengineering.news;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+// HttpClient backed by the platform HttpURLConnection
+// with keep-alive the socket is left in the platform's pool when the response is closed,
+// without it every request disconnects like the original QueryUtils did
+// only first byte and total time are reported, the platform does not expose the other phases
+public class UrlConnectionHttpClient implements HttpClient {
+
+    // state variables defined in the constructor
+    private final boolean mKeepAlive;
+    private final int mConnectTimeoutMillis;
+    private final int mReadTimeoutMillis;
+
+    public UrlConnectionHttpClient(boolean keepAlive, int connectTimeoutMillis, int readTimeoutMillis) {
+        mKeepAlive = keepAlive;
+        mConnectTimeoutMillis = connectTimeoutMillis;
+        mReadTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public HttpClient.Response get(String url, Map<String, String> headers, Cancellation cancellation)
+            throws IOException {
+
+        RequestTiming timing = new RequestTiming(false);
+        timing.markStart();
+
+        // open connection, set timeouts, set request method
+        final HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+        urlConnection.setConnectTimeout(mConnectTimeoutMillis);
+        urlConnection.setReadTimeout(mReadTimeoutMillis);
+        urlConnection.setRequestMethod("GET");
+
+        // asking for gzip explicitly means decompressing explicitly, on every platform version
+        urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+        if (!mKeepAlive) {
+            urlConnection.setRequestProperty("Connection", "close");
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            urlConnection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        // disconnecting closes the socket, which aborts a connect or read blocked on it
+        Closeable abort = new Closeable() {
+            @Override
+            public void close() {
+                urlConnection.disconnect();
+            }
+        };
+        if (cancellation != null) {
+            cancellation.register(abort);
+        }
+
+        // the response code is available once the status line has arrived
+        try {
+            urlConnection.getResponseCode();
+        } catch (IOException e) {
+            urlConnection.disconnect();
+            if (cancellation != null) {
+                cancellation.unregister(abort);
+            }
+            throw e;
+        }
+        timing.markFirstByte();
+        return new Response(urlConnection, timing, cancellation, abort);
+    }
+
+    private class Response implements HttpClient.Response {
+
+        private final HttpURLConnection mConnection;
+        private final RequestTiming mTiming;
+        private final Cancellation mCancellation;
+        private final Closeable mAbort;
+        private InputStream mBody;
+
+        Response(HttpURLConnection connection, RequestTiming timing, Cancellation cancellation, Closeable abort) {
+            mConnection = connection;
+            mTiming = timing;
+            mCancellation = cancellation;
+            mAbort = abort;
+        }
+
+        @Override
+        public int getCode() {
+            try {
+                return mConnection.getResponseCode();
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return mConnection.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (mBody == null) {
+                mBody = mConnection.getInputStream();
+                if ("gzip".equalsIgnoreCase(mConnection.getContentEncoding())) {
+                    mBody = new GZIPInputStream(mBody);
+                }
+            }
+            return mBody;
+        }
+
+        @Override
+        public RequestTiming getTiming() {
+            return mTiming;
+        }
+
+        // closing the stream without disconnecting returns the socket to the keep-alive pool
+        @Override
+        public void close() throws IOException {
+            try {
+                if (mBody != null) {
+                    mBody.close();
+                }
+            } finally {
+                if (!mKeepAlive) {
+                    mConnection.disconnect();
+                }
+                mTiming.markEnd();
+                if (mCancellation != null) {
+                    mCancellation.unregister(mAbort);
+                }
+            }
+        }
+    }
+
+}
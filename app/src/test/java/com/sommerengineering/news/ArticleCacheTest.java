@@ -0,0 +1,166 @@
+package com.sommerengineering.news;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises {@link ArticleCache} and the conditional requests made by
+ * {@link QueryUtils#fetchArticleData} against a local HTTP server.
+ */
+public class ArticleCacheTest {
+
+    private static final String BODY = "{\"response\":{\"results\":["
+            + "{\"sectionName\":\"Travel\",\"webPublicationDate\":\"2018-10-06T12:00:00Z\",\"webUrl\":\"https://a\","
+            + "\"fields\":{\"headline\":\"Surf\",\"trailText\":\"Baja\"},\"tags\":[]}]}}";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private String mUrl;
+
+    // request headers seen by the server and the status it replied with, in order
+    private final List<String> mIfNoneMatch = new ArrayList<>();
+    private final List<Integer> mStatus = new ArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+
+        // no backoff between retries, and a breaker not tripped by earlier tests
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 0, 0, new Random(0)));
+        QueryUtils.setCircuitBreaker(new CircuitBreaker(3, 60 * 1000, Clock.SYSTEM));
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                mIfNoneMatch.add(ifNoneMatch);
+                if ("\"v1\"".equals(ifNoneMatch)) {
+                    mStatus.add(304);
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] body = BODY.getBytes("UTF-8");
+                    mStatus.add(200);
+                    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                }
+                exchange.close();
+            }
+        });
+        mServer.start();
+        mUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?q=surf";
+    }
+
+    @After
+    public void stopServer() {
+        mServer.stop(0);
+        QueryUtils.setRetryPolicy(null);
+        QueryUtils.setCircuitBreaker(null);
+    }
+
+    @Test
+    public void secondRequest_isRevalidatedWithETag() throws IOException {
+        ArticleCache cache = new ArticleCache(mFolder.newFolder(), 1024 * 1024, 0);
+
+        List<Article> first = QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL).getArticles();
+        List<Article> second = QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL).getArticles();
+
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertEquals("Surf", second.get(0).getTitle());
+        assertNull(mIfNoneMatch.get(0));
+        assertEquals("\"v1\"", mIfNoneMatch.get(1));
+        assertEquals(Integer.valueOf(304), mStatus.get(1));
+    }
+
+    @Test
+    public void serverFailure_fallsBackToStaleEntry() throws IOException {
+        ArticleCache cache = new ArticleCache(mFolder.newFolder(), 1024 * 1024, 0);
+        QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL);
+        mServer.stop(0);
+
+        FeedResult result = QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL);
+
+        assertEquals(FeedResult.Status.NETWORK_ERROR, result.getStatus());
+        assertEquals(1, result.getArticles().size());
+        assertTrue(cache.get(mUrl).isExpired());
+    }
+
+    @Test
+    public void unwritableCache_stillReturnsTheArticles() throws IOException {
+
+        // a regular file where the cache directory should be, so no entry can be written
+        ArticleCache cache = new ArticleCache(mFolder.newFile(), 1024 * 1024, 60 * 1000);
+
+        FeedResult result = QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL);
+
+        assertEquals(FeedResult.Status.OK, result.getStatus());
+        assertEquals(1, result.getArticles().size());
+        assertNull(cache.get(mUrl));
+    }
+
+    @Test
+    public void entryWithinTtl_isNotExpired() throws IOException {
+        ArticleCache cache = new ArticleCache(mFolder.newFolder(), 1024 * 1024, 60 * 1000);
+        QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL);
+
+        ArticleCache.Entry entry = cache.get(mUrl);
+
+        assertFalse(entry.isExpired());
+        assertEquals("\"v1\"", entry.getETag());
+        assertEquals(1, QueryUtils.readCachedArticles(entry).size());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntry_isEvicted() throws IOException {
+        File directory = mFolder.newFolder();
+        byte[] body = new byte[400];
+        ArticleCache cache = new ArticleCache(directory, 1000, 60 * 1000);
+
+        put(cache, "a", body);
+        put(cache, "b", body);
+        backdate(directory);
+        assertNotNull(cache.get("a"));
+        put(cache, "c", body);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertTrue(cache.size() <= 1000);
+    }
+
+    private static void put(ArticleCache cache, String url, byte[] body) throws IOException {
+        ArticleCache.Editor editor = cache.edit(url, null, null);
+        editor.getOutputStream().write(body);
+        editor.commit();
+    }
+
+    // file timestamps have coarse resolution on some file systems
+    private static void backdate(File directory) {
+        for (File file : directory.listFiles()) {
+            file.setLastModified(file.lastModified() - 10000);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link ArticleCodec} restores every field, tolerates records of
+ * other versions, and stores the articles in fewer bytes than the raw Guardian
+ * JSON. Encode, decode and parse times are compared by CodecBenchmark in the
+ * benchmark module.
+ */
+public class ArticleCodecTest {
+
+    @Test
+    public void decode_restoresEveryField() throws IOException {
+        List<Article> articles = Arrays.asList(
+                new Article("Baja surf \u00a1ahora!", "<b>Swell</b> \u2192 south", "tim", "adams",
+                        "2018-10-06T12:00:00Z", "Travel", "https://a", "https://a.jpg"),
+                new Article("Storm", "", "", "", "last week", "Travel", "https://b", ""),
+                new Article("Tide", "Low", "tim", "adams", "1969-07-20T20:17:40Z", "Science", "https://c", ""));
+
+        List<Article> decoded = ArticleCodec.decode(ArticleCodec.encode(articles));
+
+        assertEquals(articles.size(), decoded.size());
+        for (int i = 0; i < articles.size(); i++) {
+            assertSameFields(articles.get(i), decoded.get(i));
+        }
+
+        // repeated sections and names are decoded once and shared
+        assertSame(decoded.get(0).getSection(), decoded.get(1).getSection());
+        assertSame(decoded.get(0).getLastName(), decoded.get(2).getLastName());
+    }
+
+    @Test
+    public void records_ofOtherVersionsAreRead() throws IOException {
+        byte[] encoded = ArticleCodec.encode(Arrays.asList(
+                new Article("Storm", "", "", "", "", "Travel", "https://b", "")));
+
+        // header is magic, version and count, then the single byte length of the only record
+        int lengthAt = 6;
+        int length = encoded[lengthAt];
+
+        // a later version appended a field the reader does not know
+        byte[] longer = Arrays.copyOf(encoded, encoded.length + 3);
+        longer[lengthAt] = (byte) (length + 3);
+        longer[encoded.length] = 2;
+        longer[encoded.length + 1] = 'x';
+        longer[encoded.length + 2] = 'y';
+        assertEquals("https://b", ArticleCodec.decode(longer).get(0).getUrl());
+
+        // an earlier version had no date, the text date field of an empty date is two bytes
+        byte[] shorter = Arrays.copyOf(encoded, encoded.length - 2);
+        shorter[lengthAt] = (byte) (length - 2);
+        Article article = ArticleCodec.decode(shorter).get(0);
+        assertEquals("Travel", article.getSection());
+        assertEquals("", article.getDate());
+    }
+
+    @Test
+    public void damagedBytes_areRejected() {
+        byte[] encoded = ArticleCodec.encode(Arrays.asList(
+                new Article("Storm", "", "", "", "2018-10-06T12:00:00Z", "Travel", "https://b")));
+        try {
+            ArticleCodec.decode("{\"response\":{}}".getBytes());
+            fail("bytes that are not an encoded list should be rejected");
+        } catch (IOException expected) {
+        }
+        try {
+            ArticleCodec.decode(Arrays.copyOf(encoded, encoded.length - 1));
+            fail("a truncated record should be rejected");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void encoded_isSmallerThanJson() throws IOException {
+        for (String fixture : new String[] {"guardian_search_large.json", "guardian_search_projected.json"}) {
+            byte[] json = QueryUtilsTest.readFixture(fixture);
+            List<Article> articles = QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(json),
+                    FieldProjection.ALL);
+            byte[] encoded = ArticleCodec.encode(articles);
+
+            List<Article> decoded = ArticleCodec.decode(encoded);
+            for (int i = 0; i < articles.size(); i++) {
+                assertSameFields(articles.get(i), decoded.get(i));
+            }
+
+            assertTrue("encoded articles should be smaller than the JSON", encoded.length < json.length);
+        }
+    }
+
+    private static void assertSameFields(Article expected, Article actual) {
+        assertEquals(expected.getUrl(), actual.getUrl());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getTrailText(), actual.getTrailText());
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getSection(), actual.getSection());
+        assertEquals(expected.getThumbnail(), actual.getThumbnail());
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the heap retained by 10k articles, comparing {@link Article} with
+ * the previous representation that held every attribute and display value as
+ * its own String. Every article gets fresh copies of its strings, as parsing
+ * a response produces them.
+ */
+public class ArticleFootprintTest {
+
+    private static final int ARTICLE_COUNT = 10000;
+
+    @Test
+    public void articles_retainLessThanThePreviousRepresentation() throws Exception {
+        byte[] json = QueryUtilsTest.readFixture("guardian_search_large.json");
+        final List<Article> fixtures = QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(json),
+                FieldProjection.ALL);
+
+        long legacyBytes = retainedBytes(new Factory() {
+            @Override
+            public Object create(int i) {
+                Article article = fixtures.get(i % fixtures.size());
+                return new LegacyArticle(copy(article.getTitle()), copy(article.getTrailText()),
+                        copy(article.getFirstName()), copy(article.getLastName()), copy(article.getDate()),
+                        copy(article.getSection()), copy(article.getUrl()) + i, copy(article.getThumbnail()));
+            }
+        });
+        long leanBytes = retainedBytes(new Factory() {
+            @Override
+            public Object create(int i) {
+                Article article = fixtures.get(i % fixtures.size());
+                return new Article(copy(article.getTitle()), copy(article.getTrailText()),
+                        copy(article.getFirstName()), copy(article.getLastName()), copy(article.getDate()),
+                        copy(article.getSection()), copy(article.getUrl()) + i, copy(article.getThumbnail()));
+            }
+        });
+
+        assertTrue("lean articles should retain less heap, " + leanBytes + " against " + legacyBytes + " bytes",
+                leanBytes < legacyBytes);
+    }
+
+    private interface Factory {
+        Object create(int i);
+    }
+
+    // heap in use with the objects alive minus the heap in use after they are released
+    private static long retainedBytes(Factory factory) {
+        long before = usedHeap();
+        List<Object> objects = new ArrayList<>(ARTICLE_COUNT);
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            objects.add(factory.create(i));
+        }
+        long after = usedHeap();
+        assertEquals(ARTICLE_COUNT, objects.size());
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    // the previous Article, seven attribute Strings, the date as text and a display String of each
+    private static class LegacyArticle {
+
+        private final String mTitle;
+        private final String mTrailText;
+        private final String mFirstName;
+        private final String mLastName;
+        private final String mDate;
+        private final String mSection;
+        private final String mUrl;
+        private final String mThumbnail;
+        private final CharSequence mDisplayTrailText;
+        private final String mDisplayAuthor;
+        private final String mDisplayDate;
+
+        LegacyArticle(String title, String trailText, String firstName, String lastName, String date,
+                String section, String url, String thumbnail) {
+            mTitle = title;
+            mTrailText = trailText;
+            mFirstName = firstName;
+            mLastName = lastName;
+            mDate = date;
+            mSection = section;
+            mUrl = url;
+            mThumbnail = thumbnail;
+            mDisplayTrailText = null;
+            mDisplayAuthor = ArticleFormatter.formatAuthor(firstName, lastName);
+            mDisplayDate = ArticleFormatter.formatDate(date);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ArticleFormatterTest {
+
+    @Test
+    public void formatDate_dropsTime() {
+        assertEquals("Oct 6, 2018", ArticleFormatter.formatDate("2018-10-06T23:59:59Z"));
+    }
+
+    @Test
+    public void formatDate_ofMillisIsTheDayOfTheTimestamp() {
+        assertEquals("Oct 6, 2018", ArticleFormatter.formatDate(ArticleFormatter.parseTimestamp("2018-10-06T23:59:59Z")));
+        assertEquals("Oct 6, 2018", ArticleFormatter.formatDate(ArticleFormatter.parseTimestamp("2018-10-06T00:00:00Z")));
+    }
+
+    @Test
+    public void formatDate_unexpectedFormatIsReturnedUnchanged() {
+        assertEquals("yesterday", ArticleFormatter.formatDate("yesterday"));
+    }
+
+    @Test
+    public void formatAuthor_capitalizesBothNames() {
+        assertEquals("Tim Adams", ArticleFormatter.formatAuthor("tim", "adams"));
+    }
+
+    @Test
+    public void formatAuthor_missingNamesAreEmpty() {
+        assertEquals("", ArticleFormatter.formatAuthor("", ""));
+        assertEquals("Adams", ArticleFormatter.formatAuthor("", "adams"));
+    }
+
+    @Test
+    public void parseTimestamp_matchesSimpleDateFormatAndFormatsBack() throws Exception {
+        java.text.SimpleDateFormat format = new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", java.util.Locale.US);
+        format.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
+        for (String timestamp : new String[] {"2018-10-06T23:59:59Z", "1970-01-01T00:00:00Z", "1969-12-31T23:59:59Z",
+                "2000-02-29T12:00:00Z", "1600-03-01T00:00:01Z", "9999-12-31T23:59:59Z"}) {
+            long millis = ArticleFormatter.parseTimestamp(timestamp);
+            assertEquals(timestamp, format.parse(timestamp).getTime(), millis);
+            assertEquals(timestamp, ArticleFormatter.formatTimestamp(millis));
+        }
+    }
+
+    @Test
+    public void parseTimestamp_rejectsAnyOtherText() {
+        for (String timestamp : new String[] {"", "yesterday", "2018-10-06T23:59:59.123Z", "2018-10-06 23:59:59Z",
+                "2018-02-29T12:00:00Z", "2018-13-01T12:00:00Z", "2018-10-06T24:00:00Z", "2018-1a-06T12:00:00Z"}) {
+            assertEquals(timestamp, Long.MIN_VALUE, ArticleFormatter.parseTimestamp(timestamp));
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArticleMemoryCacheTest {
+
+    private static final List<Article> ARTICLES = Collections.singletonList(
+            new Article("Surf", "Baja", "", "", "2018-10-06T12:00:00Z", "Travel", "https://a"));
+
+    @Test
+    public void equivalentQueries_shareOneEntry() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(4, 60 * 1000);
+        cache.put("https://content.guardianapis.com/search?order-by=newest&q=surf&page-size=10&api-key=a", ARTICLES);
+
+        ArticleMemoryCache.Entry entry =
+                cache.get("https://content.guardianapis.com/search?api-key=b&page-size=10&q=surf&order-by=newest");
+
+        assertNotNull(entry);
+        assertFalse(entry.isStale());
+        assertEquals(ARTICLES, entry.getArticles());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void differentPageSize_misses() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(4, 60 * 1000);
+        cache.put("https://content.guardianapis.com/search?page-size=10", ARTICLES);
+
+        assertNull(cache.get("https://content.guardianapis.com/search?page-size=20"));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void expiredEntry_isStillServedAsStale() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(4, -1);
+        cache.put("https://content.guardianapis.com/search?q=surf", ARTICLES);
+
+        ArticleMemoryCache.Entry entry = cache.get("https://content.guardianapis.com/search?q=surf");
+
+        assertTrue(entry.isStale());
+        assertEquals(ARTICLES, entry.getArticles());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntry_isEvicted() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(2, 60 * 1000);
+        cache.put("https://content.guardianapis.com/search?q=a", ARTICLES);
+        cache.put("https://content.guardianapis.com/search?q=b", ARTICLES);
+        cache.get("https://content.guardianapis.com/search?q=a");
+        cache.put("https://content.guardianapis.com/search?q=c", ARTICLES);
+
+        assertNull(cache.get("https://content.guardianapis.com/search?q=b"));
+        assertNotNull(cache.get("https://content.guardianapis.com/search?q=a"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void counts_arePublishedToMetrics() {
+        Metrics metrics = Metrics.get();
+        long hits = metrics.counter(Metrics.MEMORY_CACHE_HITS).get();
+        long misses = metrics.counter(Metrics.MEMORY_CACHE_MISSES).get();
+        long evictions = metrics.counter(Metrics.MEMORY_CACHE_EVICTIONS).get();
+        ArticleMemoryCache cache = new ArticleMemoryCache(1, 60 * 1000);
+
+        cache.put("https://content.guardianapis.com/search?q=a", ARTICLES);
+        cache.get("https://content.guardianapis.com/search?q=a");
+        cache.put("https://content.guardianapis.com/search?q=b", ARTICLES);
+        cache.get("https://content.guardianapis.com/search?q=a");
+
+        assertEquals(hits + 1, metrics.counter(Metrics.MEMORY_CACHE_HITS).get());
+        assertEquals(misses + 1, metrics.counter(Metrics.MEMORY_CACHE_MISSES).get());
+        assertEquals(evictions + 1, metrics.counter(Metrics.MEMORY_CACHE_EVICTIONS).get());
+        assertTrue(metrics.dump().contains(Metrics.MEMORY_CACHE_HITS + " "));
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.sommerengineering.news;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises the indexes, persistence and recovery of {@link ArticleStore}.
+ */
+public class ArticleStoreTest {
+
+    private static final Set<String> SURF = Collections.singleton("surf");
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void query_usesDateOrderAndFeed() throws IOException {
+        ArticleStore store = new ArticleStore(mFolder.newFile(), 100);
+        store.upsert("surf", Arrays.asList(
+                article("https://a", "2018-10-06T12:00:00Z", "Travel"),
+                article("https://b", "2018-10-04T12:00:00Z", "Sport"),
+                article("https://c", "2018-10-05T12:00:00Z", "Travel")));
+        store.upsert("cooking", Arrays.asList(article("https://d", "2018-10-07T12:00:00Z", "Food")));
+
+        assertEquals(Arrays.asList("https://a", "https://c", "https://b"),
+                urls(store.query(SURF, ArticleStore.Order.NEWEST_FIRST, 10)));
+        assertEquals(Arrays.asList("https://b", "https://c"),
+                urls(store.query(SURF, ArticleStore.Order.OLDEST_FIRST, 2)));
+        assertEquals("https://d", store.query(null, ArticleStore.Order.NEWEST_FIRST, 1).get(0).getUrl());
+    }
+
+    @Test
+    public void article_staysInEveryFeedThatReturnedIt() throws IOException {
+        File file = new File(mFolder.getRoot(), "articles.store");
+        ArticleStore store = new ArticleStore(file, 100);
+        store.upsert("surf", Arrays.asList(article("https://a", "2018-10-06T12:00:00Z", "Travel")));
+
+        // the same article returned by a second topic is written once more, for that topic
+        assertEquals(1, store.upsert("travel", Arrays.asList(article("https://a", "2018-10-06T12:00:00Z", "Travel"))));
+        assertEquals(0, store.upsert("surf", Arrays.asList(article("https://a", "2018-10-06T12:00:00Z", "Travel"))));
+        store.close();
+
+        ArticleStore reopened = new ArticleStore(file, 100);
+        assertEquals(1, reopened.size());
+        assertEquals(Arrays.asList("https://a"), urls(reopened.query(SURF, ArticleStore.Order.NEWEST_FIRST, 10)));
+        assertEquals(Arrays.asList("https://a"),
+                urls(reopened.query(Collections.singleton("travel"), ArticleStore.Order.NEWEST_FIRST, 10)));
+        assertTrue(reopened.query(Collections.singleton("cooking"), ArticleStore.Order.NEWEST_FIRST, 10).isEmpty());
+    }
+
+    @Test
+    public void upsert_replacesChangedAndSkipsUnchanged() throws IOException {
+        ArticleStore store = new ArticleStore(mFolder.newFile(), 100);
+        assertEquals(1, store.upsert("surf", Arrays.asList(article("https://a", "2018-10-06T12:00:00Z", "Travel"))));
+        assertEquals(0, store.upsert("surf", Arrays.asList(article("https://a", "2018-10-06T12:00:00Z", "Travel"))));
+        assertEquals(1, store.upsert("surf", Arrays.asList(article("https://a", "2018-10-08T12:00:00Z", "Sport"))));
+
+        assertEquals(1, store.size());
+        assertEquals("2018-10-08T12:00:00Z", store.get("https://a").getDate());
+        assertEquals("Sport", store.get("https://a").getSection());
+    }
+
+    @Test
+    public void reopenedStore_hasTheSameArticles() throws IOException {
+        File file = new File(mFolder.getRoot(), "articles.store");
+        ArticleStore store = new ArticleStore(file, 3);
+        for (int i = 0; i < 5; i++) {
+            store.upsert("surf", Arrays.asList(article("https://" + i, "2018-10-0" + (i + 1) + "T12:00:00Z", "Travel")));
+        }
+        store.close();
+
+        // the two oldest articles were evicted
+        ArticleStore reopened = new ArticleStore(file, 3);
+        assertEquals(Arrays.asList("https://4", "https://3", "https://2"),
+                urls(reopened.query(SURF, ArticleStore.Order.NEWEST_FIRST, 10)));
+    }
+
+    @Test
+    public void tornRecord_isDiscardedAndTheLogRewritten() throws IOException {
+        File file = new File(mFolder.getRoot(), "articles.store");
+        ArticleStore store = new ArticleStore(file, 100);
+        store.upsert("surf", Arrays.asList(article("https://a", "2018-10-06T12:00:00Z", "Travel")));
+        store.close();
+
+        // a crash in the middle of appending the next record
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write(new byte[] {1, 0, 4, 's'});
+        out.close();
+
+        ArticleStore recovered = new ArticleStore(file, 100);
+        assertEquals(1, recovered.size());
+        recovered.upsert("surf", Arrays.asList(article("https://b", "2018-10-07T12:00:00Z", "Travel")));
+        recovered.close();
+        assertEquals(2, new ArticleStore(file, 100).size());
+    }
+
+    @Test
+    public void reopen_ofAFullStore_servesTheNewestArticles() throws IOException {
+        File file = new File(mFolder.getRoot(), "articles.store");
+        ArticleStore store = new ArticleStore(file, 1000);
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            articles.add(new Article("Baja surf report " + i, "<strong>Swell</strong> arriving on the coast " + i,
+                    "tim", "adams", String.format("2018-10-%02dT12:%02d:00Z", i % 28 + 1, i % 60), "Travel",
+                    "https://www.theguardian.com/travel/" + i));
+        }
+        store.upsert("surf", articles);
+        store.close();
+
+        ArticleStore reopened = new ArticleStore(file, 1000);
+        List<Article> feed = reopened.query(SURF, ArticleStore.Order.NEWEST_FIRST, 20);
+
+        assertEquals(20, feed.size());
+        assertEquals("2018-10-28T12:59:00Z", feed.get(0).getDate());
+    }
+
+    private static Article article(String url, String date, String section) {
+        return new Article("", "", "", "", date, section, url);
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.sommerengineering.news;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Refreshes a 50-article feed with {@link DeltaRefresh} against a local server that
+ * implements the from-date and page parameters of the Guardian search endpoint.
+ */
+public class DeltaRefreshTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private HttpServer mServer;
+    private String mTopicUrl;
+
+    // every article on the server, newest first, and the query strings it received
+    private final List<String[]> mArticles = new ArrayList<>();
+    private final List<String> mQueries = new ArrayList<>();
+    private long mBytesSent;
+
+    @Before
+    public void setUp() throws IOException {
+        QueryUtils.setRetryPolicy(new RetryPolicy(1, 0, 0, new Random(0)));
+        QueryUtils.setCircuitBreaker(new CircuitBreaker(3, 60 * 1000, Clock.SYSTEM));
+        for (int i = 50; i >= 1; i--) {
+            addArticle(i);
+        }
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getRawQuery();
+                mQueries.add(query);
+                Map<String, String> parameters = new HashMap<>();
+                for (String parameter : query.split("&")) {
+                    String[] pair = parameter.split("=", 2);
+                    parameters.put(pair[0], URLDecoder.decode(pair[1], "UTF-8"));
+                }
+                String fromDate = parameters.containsKey("from-date") ? parameters.get("from-date") : "";
+                int page = Integer.parseInt(parameters.get("page"));
+
+                // inclusive of from-date, like the Guardian API
+                StringBuilder results = new StringBuilder();
+                int index = 0;
+                for (String[] article : mArticles) {
+                    if (article[1].compareTo(fromDate) >= 0) {
+                        if (index >= (page - 1) * PAGE_SIZE && index < page * PAGE_SIZE) {
+                            results.append(results.length() == 0 ? "" : ",").append(String.format(
+                                    "{\"webUrl\":\"%s\",\"webPublicationDate\":\"%s\",\"sectionName\":\"Travel\","
+                                    + "\"fields\":{\"headline\":\"Surf\"}}", article[0], article[1]));
+                        }
+                        index++;
+                    }
+                }
+                byte[] body = ("{\"response\":{\"results\":[" + results + "]}}").getBytes("UTF-8");
+                mBytesSent += body.length;
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        mServer.start();
+        mTopicUrl = "http://127.0.0.1:" + mServer.getAddress().getPort()
+                + "/search?order-by=relevance&q=surf&page-size=" + PAGE_SIZE;
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+        QueryUtils.setRetryPolicy(null);
+        QueryUtils.setCircuitBreaker(null);
+    }
+
+    @Test
+    public void refresh_transfersOnlyTheNewArticles() {
+        List<Article> held = fetchAll();
+        long fullBytes = mBytesSent;
+        assertEquals(50, held.size());
+
+        for (int i = 51; i <= 53; i++) {
+            addArticle(i);
+        }
+        mQueries.clear();
+        mBytesSent = 0;
+
+        String newest = DeltaRefresh.newestDate(Collections.singletonList(held));
+        DeltaRefresh.Delta delta = DeltaRefresh.fetchNewer(mTopicUrl, newest, urls(held), FieldProjection.ALL,
+                PAGE_SIZE, 5, null);
+
+        assertTrue(delta.getResult().isSuccessful());
+        assertTrue("delta of " + mBytesSent + " bytes against a full feed of " + fullBytes, mBytesSent < fullBytes);
+        assertFalse(delta.isGapTooLarge());
+        assertEquals("https://53", delta.getArticles().get(0).getUrl());
+        assertEquals(3, delta.getArticles().size());
+        assertEquals(1, mQueries.size());
+        assertTrue(mQueries.get(0).contains("order-by=newest"));
+        assertTrue(mQueries.get(0).contains("from-date=" + newest));
+        assertTrue(mBytesSent * 5 < fullBytes);
+    }
+
+    @Test
+    public void largeGap_isReported() {
+        List<Article> held = fetchAll();
+        for (int i = 51; i <= 80; i++) {
+            addArticle(i);
+        }
+
+        DeltaRefresh.Delta delta = DeltaRefresh.fetchNewer(mTopicUrl,
+                DeltaRefresh.newestDate(Collections.singletonList(held)), urls(held), FieldProjection.ALL, PAGE_SIZE, 2,
+                null);
+
+        assertTrue(delta.isGapTooLarge());
+        assertEquals(20, delta.getArticles().size());
+    }
+
+    private void addArticle(int i) {
+        String[] article = {"https://" + i, String.format("2018-10-%02dT%02d:00:00Z", i / 24 + 1, i % 24)};
+        mArticles.add(0, article);
+        Collections.sort(mArticles, new Comparator<String[]>() {
+            @Override
+            public int compare(String[] a, String[] b) {
+                return b[1].compareTo(a[1]);
+            }
+        });
+    }
+
+    // the whole feed one page at a time, as ArticleLoader pages through it
+    private List<Article> fetchAll() {
+        List<Article> articles = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            List<Article> result = QueryUtils.fetchArticleData(mTopicUrl + "&page=" + page, null,
+                    FieldProjection.ALL).getArticles();
+            articles.addAll(result);
+            if (result.size() < PAGE_SIZE) {
+                return articles;
+            }
+        }
+    }
+
+    private static Set<String> urls(List<Article> articles) {
+        Set<String> urls = new HashSet<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.sommerengineering.news;
+
+// time only moves when a test says so
+class FakeClock implements Clock {
+
+    private long mNow = 1000;
+
+    @Override
+    public long currentTimeMillis() {
+        return mNow;
+    }
+
+    void advance(long millis) {
+        mNow += millis;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.sommerengineering.news;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link FanOut} overlaps the per-topic requests and reports them in completion
+ * order, and that {@link ArticleMerger} de-duplicates and sorts the merged feed.
+ */
+public class FanOutTest {
+
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void tasks_runTogetherAndReportInCompletionOrder() throws InterruptedException {
+        final List<Long> order = Collections.synchronizedList(new ArrayList<Long>());
+
+        // every task waits for all three to be running, so none can finish unless they overlap
+        final CountDownLatch running = new CountDownLatch(3);
+
+        // each task finishes once the callback has seen the one before it, the first straight away
+        final Map<Long, CountDownLatch> finish = new HashMap<>();
+        for (long key = 1; key <= 3; key++) {
+            finish.put(key, new CountDownLatch(key == 1 ? 0 : 1));
+        }
+
+        FanOut.run(mExecutor, Arrays.asList(3L, 1L, 2L), new FanOut.Task<Long, Boolean>() {
+            @Override
+            public Boolean run(Long key) {
+                running.countDown();
+                return await(running) && await(finish.get(key));
+            }
+        }, new FanOut.Callback<Long, Boolean>() {
+            @Override
+            public void onResult(Long key, Boolean overlapped, int remaining) {
+                assertTrue("task " + key + " did not run alongside the others", overlapped);
+                assertEquals(2 - order.size(), remaining);
+                order.add(key);
+                CountDownLatch next = finish.get(key + 1);
+                if (next != null) {
+                    next.countDown();
+                }
+            }
+        });
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), order);
+    }
+
+    @Test
+    public void merge_dropsDuplicatesAndSortsByDate() {
+        List<Article> surf = Arrays.asList(
+                article("https://a", "2018-10-06T12:00:00Z"),
+                article("https://b", "2018-10-04T12:00:00Z"));
+        List<Article> travel = Arrays.asList(
+                article("https://c", "2018-10-05T12:00:00Z"),
+                article("https://a", "2018-10-06T12:00:00Z"));
+        List<List<Article>> lists = Arrays.asList(surf, travel);
+
+        assertEquals(Arrays.asList("https://a", "https://c", "https://b"),
+                urls(ArticleMerger.merge(lists, ArticleMerger.NEWEST_FIRST)));
+        assertEquals(Arrays.asList("https://b", "https://c", "https://a"),
+                urls(ArticleMerger.merge(lists, ArticleMerger.OLDEST_FIRST)));
+        assertEquals(Arrays.asList("https://a", "https://b", "https://c"),
+                urls(ArticleMerger.merge(lists, null)));
+    }
+
+    private static Article article(String url, String date) {
+        return new Article("", "", "", "", date, "", url);
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+    // false if the latch is not released in time, so a missing overlap fails instead of hanging
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
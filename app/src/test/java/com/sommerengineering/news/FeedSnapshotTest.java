@@ -0,0 +1,67 @@
+package com.sommerengineering.news;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link FeedSnapshot} keeps the top of the feed and that a
+ * missing or damaged snapshot reads as empty.
+ */
+public class FeedSnapshotTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void write_keepsTheTopOfTheFeed() throws IOException {
+        List<Article> feed = new ArrayList<>();
+        for (int i = 0; i < FeedSnapshot.MAX_ARTICLES + 5; i++) {
+            feed.add(new Article("Title " + i, "<b>Trail</b> " + i, "tim", "",
+                    "2018-10-06T12:00:00Z", "Travel", "https://" + i, "https://thumbnail/" + i));
+        }
+        File file = new File(mFolder.getRoot(), "feed.snapshot");
+        FeedSnapshot.write(file, feed);
+
+        List<Article> snapshot = FeedSnapshot.read(file);
+        assertEquals(FeedSnapshot.MAX_ARTICLES, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            Article expected = feed.get(i);
+            Article actual = snapshot.get(i);
+            assertEquals(expected.getUrl(), actual.getUrl());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getTrailText(), actual.getTrailText());
+            assertEquals(expected.getDisplayAuthor(), actual.getDisplayAuthor());
+            assertEquals(expected.getDate(), actual.getDate());
+            assertEquals(expected.getThumbnail(), actual.getThumbnail());
+        }
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void missingOrDamagedSnapshot_isEmpty() throws IOException {
+        File file = new File(mFolder.getRoot(), "feed.snapshot");
+        assertTrue(FeedSnapshot.read(file).isEmpty());
+
+        List<Article> feed = new ArrayList<>();
+        feed.add(new Article("Title", "Trail", "", "", "2018-10-06T12:00:00Z", "Travel", "https://a"));
+        FeedSnapshot.write(file, feed);
+
+        // a snapshot cut short
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        FileOutputStream out = new FileOutputStream(file, false);
+        out.write(bytes, 0, bytes.length - 4);
+        out.close();
+        assertTrue(FeedSnapshot.read(file).isEmpty());
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the query parameters built from the feed's {@link FieldProjection} and
+ * that the projected response parses to the articles of the previous query
+ * (show-elements=image), and compares the bytes each response sends through
+ * {@link MockGuardianServer}. Both fixtures are hand-made in the shape of
+ * Guardian search responses for the same 200 results, not recorded from the
+ * API, so the byte counts show the saving rather than measure it exactly.
+ * The parse times of both are compared by ParseBenchmark#extractAllFields
+ * and ParseBenchmark#extractFeedProjection in the benchmark module.
+ */
+public class FieldProjectionTest {
+
+    // response to the previous query, with show-elements=image
+    private static final String CURRENT_FIXTURE = "guardian_search_large.json";
+
+    // response to the projected query, no element blocks
+    private static final String PROJECTED_FIXTURE = "guardian_search_projected.json";
+
+    @Test
+    public void queryParameters_matchDeclaredFields() {
+        assertEquals("headline,trailText,thumbnail", FeedSettings.FEED_PROJECTION.getShowFields());
+        assertEquals("contributor", FeedSettings.FEED_PROJECTION.getShowTags());
+
+        FieldProjection headlineOnly = new FieldProjection(FieldProjection.Field.HEADLINE);
+        assertEquals("headline", headlineOnly.getShowFields());
+        assertEquals("", headlineOnly.getShowTags());
+    }
+
+    @Test
+    public void fieldsOutsideProjection_areNotParsed() throws Exception {
+        byte[] json = QueryUtilsTest.readFixture(PROJECTED_FIXTURE);
+
+        List<Article> articles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(json), new FieldProjection(FieldProjection.Field.HEADLINE));
+
+        assertEquals(200, articles.size());
+        for (Article article : articles) {
+            assertFalse(article.getTitle().isEmpty());
+            assertEquals("", article.getTrailText());
+            assertEquals("", article.getThumbnail());
+            assertEquals("", article.getDisplayAuthor());
+        }
+    }
+
+    @Test
+    public void projectedQuery_receivesFewerBodyBytes() throws Exception {
+        long current = bodyBytes(CURRENT_FIXTURE, FieldProjection.ALL);
+        long projected = bodyBytes(PROJECTED_FIXTURE, FeedSettings.FEED_PROJECTION);
+
+        assertTrue("projected response should be smaller, " + projected + " against " + current + " bytes",
+                projected > 0 && projected < current);
+    }
+
+    @Test
+    public void projectedResponse_parsesToTheSameArticles() throws Exception {
+        byte[] current = QueryUtilsTest.readFixture(CURRENT_FIXTURE);
+        byte[] projected = QueryUtilsTest.readFixture(PROJECTED_FIXTURE);
+
+        List<Article> currentArticles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(current), FieldProjection.ALL);
+        List<Article> projectedArticles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(projected), FeedSettings.FEED_PROJECTION);
+        assertEquals(currentArticles.size(), projectedArticles.size());
+        for (int i = 0; i < currentArticles.size(); i++) {
+            assertEquals(currentArticles.get(i).getUrl(), projectedArticles.get(i).getUrl());
+            assertEquals(currentArticles.get(i).getThumbnail(), projectedArticles.get(i).getThumbnail());
+            assertEquals(currentArticles.get(i).getDisplayAuthor(), projectedArticles.get(i).getDisplayAuthor());
+        }
+    }
+
+    // body bytes received by fetching all 200 results of the fixture from a local server in one page
+    private static long bodyBytes(String fixture, FieldProjection projection) throws Exception {
+        MockGuardianServer server = new MockGuardianServer(fixture);
+        Metrics.Counter bodyBytes = Metrics.get().counter(Metrics.HTTP_BODY_BYTES);
+        try {
+            long before = bodyBytes.get();
+            FeedResult result = QueryUtils.fetchArticleData(
+                    server.getUrl() + "?q=projection&page=1&page-size=200", null, projection);
+            assertTrue(result.isSuccessful());
+            assertEquals(200, result.getArticles().size());
+            return bodyBytes.get() - before;
+        } finally {
+            server.stop();
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.sommerengineering.news;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.ConnectionPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Connection reuse, request timing and gzip decoding of sequential requests to a
+ * local server, for both {@link HttpClient} implementations.
+ */
+public class HttpClientTest {
+
+    private static final int REQUESTS = 50;
+
+    private static final String BODY = "{\"response\":{\"results\":[]}}";
+
+    private HttpServer mServer;
+    private String mUrl;
+
+    // client ports seen by the server, one per TCP connection
+    private final Set<Integer> mClientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private volatile String mAcceptEncoding;
+
+    @Before
+    public void startServer() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mClientPorts.add(exchange.getRemoteAddress().getPort());
+                mAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                byte[] body = gzip(BODY.getBytes("UTF-8"));
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        mServer.start();
+        mUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search";
+    }
+
+    @After
+    public void stopServer() {
+        mServer.stop(0);
+    }
+
+    @Test
+    public void pooledClient_reusesOneConnection() throws IOException {
+        run(new PooledHttpClient(new ConnectionPool(), 15000, 10000));
+        assertEquals(1, mClientPorts.size());
+
+        mClientPorts.clear();
+        run(new PooledHttpClient(new ConnectionPool(0, 1, TimeUnit.MILLISECONDS), 15000, 10000));
+        assertEquals(REQUESTS, mClientPorts.size());
+    }
+
+    @Test
+    public void urlConnectionClient_reusesConnectionWithKeepAlive() throws IOException {
+        run(new UrlConnectionHttpClient(true, 15000, 10000));
+        assertTrue(mClientPorts.size() < REQUESTS);
+
+        mClientPorts.clear();
+        run(new UrlConnectionHttpClient(false, 15000, 10000));
+        assertEquals(REQUESTS, mClientPorts.size());
+    }
+
+    @Test
+    public void pooledClient_reportsConnectOnlyForFirstRequest() throws IOException {
+        HttpClient client = new PooledHttpClient();
+
+        RequestTiming first = request(client);
+        RequestTiming second = request(client);
+
+        assertFalse(first.isConnectionReused());
+        assertTrue(first.getConnectMillis() >= 0);
+        assertTrue(second.isConnectionReused());
+        assertEquals(-1, second.getConnectMillis());
+        assertTrue(second.getTotalMillis() >= second.getFirstByteMillis());
+    }
+
+    @Test
+    public void firstByte_includesTheServersDelay() throws IOException {
+        MockGuardianServer server = new MockGuardianServer("guardian_search_large.json");
+        server.setLatencyMillis(200);
+        try {
+            HttpClient[] clients = {new PooledHttpClient(), new UrlConnectionHttpClient(true, 15000, 10000)};
+            for (HttpClient client : clients) {
+                RequestTiming timing = request(client, server.getUrl() + "?page=1&page-size=10");
+                assertTrue(timing.toString(), timing.getFirstByteMillis() >= 200);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void urlConnectionClient_doesNotClaimReusedConnections() throws IOException {
+        HttpClient client = new UrlConnectionHttpClient(true, 15000, 10000);
+        request(client);
+        RequestTiming second = request(client);
+
+        // HttpURLConnection reports no connect events, so whether the connection was reused is unknown
+        assertFalse(second.reportsConnects());
+        assertFalse(second.isConnectionReused());
+    }
+
+    @Test
+    public void bothClients_requestAndDecodeGzip() throws IOException {
+        HttpClient[] clients = {new PooledHttpClient(), new UrlConnectionHttpClient(true, 15000, 10000)};
+        for (HttpClient client : clients) {
+            HttpClient.Response response = client.get(mUrl, Collections.<String, String>emptyMap(), null);
+            try {
+                assertEquals(BODY, new String(readFully(response.getBody()), "UTF-8"));
+                assertTrue(mAcceptEncoding.contains("gzip"));
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    private void run(HttpClient client) throws IOException {
+        for (int i = 0; i < REQUESTS; i++) {
+            request(client);
+        }
+    }
+
+    private RequestTiming request(HttpClient client) throws IOException {
+        return request(client, mUrl);
+    }
+
+    private static RequestTiming request(HttpClient client, String url) throws IOException {
+        HttpClient.Response response = client.get(url, Collections.<String, String>emptyMap(), null);
+        try {
+            readFully(response.getBody());
+        } finally {
+            response.close();
+        }
+        return response.getTiming();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(bytes);
+        gzip.close();
+        return out.toByteArray();
+    }
+
+}
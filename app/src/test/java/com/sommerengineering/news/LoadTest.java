@@ -0,0 +1,224 @@
+package com.sommerengineering.news;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link QueryUtils#fetchArticleData} concurrently against a
+ * {@link MockGuardianServer} and reports throughput and p50/p95/p99 latency.
+ * Other loaders are load tested the same way by passing {@link #run} a
+ * {@link Task} that calls them.
+ */
+public class LoadTest {
+
+    private static final String FIXTURE = "guardian_search_large.json";
+
+    private MockGuardianServer mServer;
+
+    // one request of a load test, given the index of the request
+    interface Task {
+        FeedResult run(int request) throws Exception;
+    }
+
+    // load the classes and open the connection pool once, so the first test does not report the startup cost
+    @BeforeClass
+    public static void warmUp() throws IOException {
+        MockGuardianServer server = new MockGuardianServer(FIXTURE);
+        try {
+            for (int i = 0; i < 20; i++) {
+                QueryUtils.fetchArticleData(server.getUrl() + "?q=warmup" + i, null, FieldProjection.ALL);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockGuardianServer(FIXTURE);
+
+        // measure the fetch path itself, the api key quota and the breaker would only throttle the load
+        QueryUtils.setRateLimiter(new RateLimiter(100000, Integer.MAX_VALUE, Clock.SYSTEM));
+        QueryUtils.setCircuitBreaker(new CircuitBreaker(Integer.MAX_VALUE, 0, Clock.SYSTEM));
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 1, 20, new Random(0)));
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+        QueryUtils.setHttpClient(null);
+        QueryUtils.setRateLimiter(null);
+        QueryUtils.setCircuitBreaker(null);
+        QueryUtils.setRetryPolicy(null);
+    }
+
+    @Test
+    public void fetch_distinctQueries() throws Exception {
+        mServer.setLatencyMillis(20);
+
+        Report report = run("fetch, 20 ms latency", 8, 200, distinctQueries(FieldProjection.ALL));
+
+        assertEquals(0, report.mFailures);
+        assertEquals(200, mServer.getRequestCount());
+        assertTrue(report.toString(), report.percentile(50) >= 20);
+    }
+
+    @Test
+    public void fetch_slowLinkWithErrors_isAbsorbedByRetries() throws Exception {
+        mServer.setLatencyMillis(10);
+        mServer.setBytesPerSecond(512 * 1024);
+        mServer.setErrorRate(0.2);
+
+        Report report = run("fetch, 512 KB/s, 20% errors", 8, 100, distinctQueries(FieldProjection.ALL));
+
+        // three attempts, a request fails only if all three are answered with 503
+        assertTrue(report.toString(), report.mFailures <= 10);
+        assertTrue(mServer.getRequestCount() > 100);
+    }
+
+    @Test
+    public void fetch_identicalQueries_shareOneRequest() throws Exception {
+        mServer.setLatencyMillis(200);
+        final String url = mServer.getUrl() + "?q=surf&page=1&page-size=10";
+
+        Report report = run("fetch, identical queries", 16, 16, new Task() {
+            @Override
+            public FeedResult run(int request) {
+                return QueryUtils.fetchArticleData(url, null, FieldProjection.ALL);
+            }
+        });
+
+        assertEquals(0, report.mFailures);
+        assertTrue("requests " + mServer.getRequestCount(), mServer.getRequestCount() < 16);
+    }
+
+    @Test
+    public void fetch_withAndWithoutConnectionReuse() throws Exception {
+        mServer.setLatencyMillis(5);
+
+        // sequential requests, so each one that does not reuse a connection pays for its own connect
+        QueryUtils.setHttpClient(new PooledHttpClient());
+        Report pooled = run("fetch, pooled connections", 1, 200, distinctQueries(FieldProjection.ALL));
+        QueryUtils.setHttpClient(new UrlConnectionHttpClient(true, 15000, 10000));
+        Report keepAlive = run("fetch, HttpURLConnection keep-alive", 1, 200, distinctQueries(FieldProjection.ALL));
+        QueryUtils.setHttpClient(new UrlConnectionHttpClient(false, 15000, 10000));
+        Report close = run("fetch, Connection: close", 1, 200, distinctQueries(FieldProjection.ALL));
+
+        assertEquals(0, pooled.mFailures);
+        assertEquals(0, keepAlive.mFailures);
+        assertEquals(0, close.mFailures);
+    }
+
+    // a different query for every request, so none of them are coalesced
+    private Task distinctQueries(final FieldProjection projection) {
+        final String baseUrl = mServer.getUrl();
+        return new Task() {
+            @Override
+            public FeedResult run(int request) {
+                String url = baseUrl + "?q=load" + request + "&page=" + (request % 20 + 1) + "&page-size=10";
+                return QueryUtils.fetchArticleData(url, null, projection);
+            }
+        };
+    }
+
+    // run the requests on the given number of threads, all starting at once, and print the report
+    static Report run(String name, int concurrency, int requests, final Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger next = new AtomicInteger();
+        final long[] latencies = new long[requests];
+        final boolean[] successes = new boolean[requests];
+        try {
+            List<Future<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        int request;
+                        while ((request = next.getAndIncrement()) < latencies.length) {
+                            long begin = System.nanoTime();
+                            FeedResult result = task.run(request);
+                            latencies[request] = System.nanoTime() - begin;
+                            successes[request] = result.isSuccessful();
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<Void> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+            long elapsed = System.nanoTime() - begin;
+
+            int failures = 0;
+            for (boolean success : successes) {
+                failures += success ? 0 : 1;
+            }
+            Report report = new Report(name, concurrency, latencies, failures, elapsed);
+            System.out.println(report);
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // throughput and latency of one load test run
+    static class Report {
+
+        private final String mName;
+        private final int mConcurrency;
+        private final long[] mSortedLatencies;
+        private final int mFailures;
+        private final long mElapsedNanos;
+
+        Report(String name, int concurrency, long[] latencies, int failures, long elapsedNanos) {
+            mName = name;
+            mConcurrency = concurrency;
+            mSortedLatencies = latencies.clone();
+            Arrays.sort(mSortedLatencies);
+            mFailures = failures;
+            mElapsedNanos = elapsedNanos;
+        }
+
+        double getRequestsPerSecond() {
+            return mSortedLatencies.length * 1e9 / mElapsedNanos;
+        }
+
+        // latency in milliseconds that the given percentage of requests finished within, nearest rank
+        double percentile(double percent) {
+            int rank = (int) Math.ceil(percent / 100 * mSortedLatencies.length);
+            return mSortedLatencies[Math.max(0, rank - 1)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: %d requests on %d threads, %d failed, %.1f req/s, p50 %.1f ms, p95 %.1f ms, p99 %.1f ms",
+                    mName, mSortedLatencies.length, mConcurrency, mFailures, getRequestsPerSecond(),
+                    percentile(50), percentile(95), percentile(99));
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.sommerengineering.news;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the histograms, counters and spans of {@link Metrics} and the
+ * counters recorded while parsing.
+ */
+public class MetricsTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void histogram_reportsCountMeanMaxAndPercentileBounds() {
+        Metrics.Histogram histogram = new Metrics().histogram("test");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50500000L, histogram.getMeanNanos());
+        assertEquals(100000000L, histogram.getMaxNanos());
+
+        // percentiles are the upper bound of their power of two bucket, and never above the maximum
+        long p50 = histogram.getPercentileNanos(0.5);
+        assertTrue(p50 >= 50000000L && p50 <= 2 * 50000000L);
+        assertEquals(100000000L, histogram.getPercentileNanos(0.99));
+        assertEquals(0, new Metrics().histogram("empty").getPercentileNanos(0.5));
+    }
+
+    @Test
+    public void span_recordsOnlyItsFirstEnd() {
+        Metrics metrics = new Metrics();
+        Metrics.Span span = metrics.start("span");
+        long nanos = span.end();
+        span.end();
+
+        assertEquals(1, metrics.histogram("span").getCount());
+        assertEquals(nanos, metrics.histogram("span").getMaxNanos());
+    }
+
+    @Test
+    public void dump_listsHistogramsAndCountersAndIsExported() throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.histogram("http.first_byte").record(2000000L);
+        metrics.counter("http.body_bytes").add(1024);
+        metrics.counter("http.body_bytes").add(1024);
+
+        String dump = metrics.dump();
+        assertTrue(dump.contains("http.first_byte count=1 mean=2.000ms"));
+        assertTrue(dump.contains("http.body_bytes 2048\n"));
+
+        File file = new File(mFolder.getRoot(), "metrics.txt");
+        metrics.writeTo(file);
+        assertEquals(dump, new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void parse_countsArticlesAndRecordsItsDuration() throws IOException {
+        Metrics metrics = Metrics.get();
+        long articles = metrics.counter(Metrics.PARSED_ARTICLES).get();
+        long parses = metrics.histogram(Metrics.PARSE).getCount();
+
+        byte[] json = QueryUtilsTest.readFixture("guardian_search_large.json");
+        QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(json), FieldProjection.ALL);
+
+        assertEquals(articles + 200, metrics.counter(Metrics.PARSED_ARTICLES).get());
+        assertEquals(parses + 1, metrics.histogram(Metrics.PARSE).getCount());
+    }
+
+}
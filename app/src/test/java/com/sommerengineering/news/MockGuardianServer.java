@@ -0,0 +1,217 @@
+package com.sommerengineering.news;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the Guardian search endpoint, serving pages cut from a
+ * fixture response. The number of results, the latency before each response,
+ * the bandwidth it is sent at and the fraction of requests answered with
+ * 503 Service Unavailable can all be changed while it runs.
+ */
+class MockGuardianServer {
+
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    // the body is written in chunks of this size when the bandwidth is limited
+    private static final int CHUNK_BYTES = 4 * 1024;
+
+    private final JsonArray mFixtureResults;
+    private final HttpServer mServer;
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+    private final Random mRandom = new Random(0);
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    // response bodies by page and page size, built once so serving them costs the same every time
+    private final Map<String, byte[]> mPages = new ConcurrentHashMap<>();
+
+    private volatile int mResultCount;
+    private volatile long mLatencyMillis;
+    private volatile long mBytesPerSecond;
+    private volatile double mErrorRate;
+
+    MockGuardianServer(String fixture) throws IOException {
+        try {
+            mFixtureResults = new JsonParser().parse(new String(QueryUtilsTest.readFixture(fixture), "UTF-8"))
+                    .getAsJsonObject().getAsJsonObject("response").getAsJsonArray("results");
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Unreadable fixture " + fixture, e);
+        }
+        mResultCount = mFixtureResults.size();
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        mServer.setExecutor(mExecutor);
+        mServer.start();
+    }
+
+    void stop() {
+        mServer.stop(0);
+        mExecutor.shutdownNow();
+    }
+
+    // the search endpoint, query parameters are appended by the caller
+    String getUrl() {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search";
+    }
+
+    int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    // total results the query matches, results beyond the fixture repeat it with distinct urls
+    void setResultCount(int resultCount) {
+        mResultCount = resultCount;
+        mPages.clear();
+    }
+
+    void setLatencyMillis(long latencyMillis) {
+        mLatencyMillis = latencyMillis;
+    }
+
+    // 0 sends the body as fast as the connection allows
+    void setBytesPerSecond(long bytesPerSecond) {
+        mBytesPerSecond = bytesPerSecond;
+    }
+
+    // fraction of requests answered with 503
+    void setErrorRate(double errorRate) {
+        mErrorRate = errorRate;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        mRequestCount.incrementAndGet();
+        if (!sleep(mLatencyMillis)) {
+            return;
+        }
+
+        boolean fail;
+        synchronized (mRandom) {
+            fail = mRandom.nextDouble() < mErrorRate;
+        }
+        if (fail) {
+            exchange.sendResponseHeaders(503, -1);
+            return;
+        }
+
+        URI uri = exchange.getRequestURI();
+        int page = intParameter(uri, "page", 1);
+        int pageSize = intParameter(uri, "page-size", DEFAULT_PAGE_SIZE);
+        byte[] body = page(page, pageSize);
+        if (body == null) {
+            // the Guardian answers a page past the end with 400 Bad Request
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        long bytesPerSecond = mBytesPerSecond;
+        if (bytesPerSecond <= 0) {
+            out.write(body);
+        } else {
+            for (int offset = 0; offset < body.length; offset += CHUNK_BYTES) {
+                int length = Math.min(CHUNK_BYTES, body.length - offset);
+                out.write(body, offset, length);
+                out.flush();
+                if (!sleep(length * 1000L / bytesPerSecond)) {
+                    return;
+                }
+            }
+        }
+        out.close();
+    }
+
+    // the response body for a page, or null if the page is past the last result
+    private byte[] page(int page, int pageSize) throws IOException {
+        String key = page + "/" + pageSize;
+        byte[] body = mPages.get(key);
+        if (body != null) {
+            return body;
+        }
+
+        int total = mResultCount;
+        int pages = (total + pageSize - 1) / pageSize;
+        if (page < 1 || (page > pages && total > 0)) {
+            return null;
+        }
+        JsonArray results = new JsonArray();
+        int end = Math.min(total, page * pageSize);
+        for (int i = (page - 1) * pageSize; i < end; i++) {
+            JsonObject result = mFixtureResults.get(i % mFixtureResults.size()).getAsJsonObject().deepCopy();
+            result.addProperty("webUrl", result.get("webUrl").getAsString() + "?n=" + i);
+            results.add(result);
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "ok");
+        response.addProperty("total", total);
+        response.addProperty("pageSize", pageSize);
+        response.addProperty("currentPage", page);
+        response.addProperty("pages", pages);
+        response.add("results", results);
+        JsonObject root = new JsonObject();
+        root.add("response", response);
+        body = root.toString().getBytes("UTF-8");
+        mPages.put(key, body);
+        return body;
+    }
+
+    private static int intParameter(URI uri, String name, int defaultValue) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                try {
+                    return Integer.parseInt(parameter.substring(name.length() + 1));
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    // false if the server is stopping
+    private static boolean sleep(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.sommerengineering.news;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the streaming parser in {@link QueryUtils} against the previous
+ * String + JSONObject tree implementation on a large Guardian search response.
+ */
+public class QueryUtilsTest {
+
+    // 200 results with contributor tags and image elements, the shape returned by onCreateLoader's query
+    private static final String LARGE_FIXTURE = "guardian_search_large.json";
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void streamingParse_matchesTreeParse() throws Exception {
+        byte[] json = readFixture(LARGE_FIXTURE);
+
+        List<Article> streamed = QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(json), FieldProjection.ALL);
+        List<Article> tree = treeParse(new ByteArrayInputStream(json));
+
+        assertEquals(200, streamed.size());
+        assertEquals(tree.size(), streamed.size());
+        for (int i = 0; i < tree.size(); i++) {
+            Article expected = tree.get(i);
+            Article actual = streamed.get(i);
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getTrailText(), actual.getTrailText());
+            assertEquals(expected.getFirstName(), actual.getFirstName());
+            assertEquals(expected.getLastName(), actual.getLastName());
+            assertEquals(expected.getDate(), actual.getDate());
+            assertEquals(expected.getSection(), actual.getSection());
+            assertEquals(expected.getUrl(), actual.getUrl());
+        }
+    }
+
+    @Test
+    public void streamingParse_missingAuthorIsEmpty() throws Exception {
+        String json = "{\"response\":{\"results\":[{\"webUrl\":\"u\",\"tags\":[],"
+                + "\"fields\":{\"headline\":\"h\",\"trailText\":null}}]}}";
+
+        List<Article> articles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(json.getBytes("UTF-8")), FieldProjection.ALL);
+
+        assertEquals(1, articles.size());
+        assertEquals("", articles.get(0).getFirstName());
+        assertEquals("", articles.get(0).getTrailText());
+        assertEquals("h", articles.get(0).getTitle());
+    }
+
+    @Test
+    public void loggedUrl_leavesOutTheApiKey() {
+        assertEquals("https://g/search?q=surf&page=1",
+                QueryUtils.withoutApiKey("https://g/search?q=surf&api-key=secret&page=1"));
+        assertEquals("https://g/search?q=surf", QueryUtils.withoutApiKey("https://g/search?api-key=secret&q=surf"));
+        assertEquals("https://g/search?q=surf", QueryUtils.withoutApiKey("https://g/search?q=surf&api-key=secret"));
+        assertEquals("https://g/search", QueryUtils.withoutApiKey("https://g/search?api-key=secret"));
+    }
+
+    @Test
+    public void streamingParse_allocatesFewerTotalBytesThanTreeParse() throws Exception {
+
+        // the per-thread allocation counter is an extension of HotSpot and compatible JVMs
+        assumeTrue("thread allocation counting is not available", isThreadAllocationCounted());
+        final byte[] json = readFixture(LARGE_FIXTURE);
+
+        long streamed = allocatedBytesPerParse(streamingParse(json));
+        long tree = allocatedBytesPerParse(treeParse(json));
+
+        // total bytes allocated by the parsing thread, deterministic enough to assert on, parse time is measured
+        // by ParseBenchmark in the benchmark module
+        assertTrue("streaming parse should allocate fewer bytes in total than the tree parse, " + streamed
+                + " against " + tree, streamed < tree);
+    }
+
+    @Test
+    public void streamingParse_peaksLowerOnTheHeapThanTreeParse() throws Exception {
+        final byte[] json = readFixture(LARGE_FIXTURE);
+
+        long streamed = peakHeapBytesPerParse(streamingParse(json));
+        long tree = peakHeapBytesPerParse(treeParse(json));
+
+        // the tree parse holds the whole response as a String and as a JSONObject tree at once
+        assertTrue("streaming parse should peak lower on the heap than the tree parse, " + streamed
+                + " against " + tree, streamed < tree);
+    }
+
+    private static Parse streamingParse(final byte[] json) {
+        return new Parse() {
+            @Override
+            public List<Article> run() throws Exception {
+                return QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(json), FieldProjection.ALL);
+            }
+        };
+    }
+
+    private static Parse treeParse(final byte[] json) {
+        return new Parse() {
+            @Override
+            public List<Article> run() throws Exception {
+                return treeParse(new ByteArrayInputStream(json));
+            }
+        };
+    }
+
+    // returns the total bytes allocated by one parse, averaged over the measured rounds
+    private static long allocatedBytesPerParse(Parse parse) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse.run();
+        }
+        long bytes = allocatedBytes();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            parse.run();
+        }
+        return (allocatedBytes() - bytes) / MEASURED_ROUNDS;
+    }
+
+    // returns the median over the measured rounds of the heap used above the level before the parse,
+    // the heap pools' peak usage is reset after a collection before each round
+    private static long peakHeapBytesPerParse(Parse parse) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse.run();
+        }
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        long[] peaks = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            System.gc();
+            long before = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                pool.resetPeakUsage();
+                before += pool.getUsage().getUsed();
+            }
+            List<Article> articles = parse.run();
+            long peak = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            peaks[i] = peak - before;
+            assertFalse(articles.isEmpty());
+        }
+        Arrays.sort(peaks);
+        return peaks[MEASURED_ROUNDS / 2];
+    }
+
+    private static boolean isThreadAllocationCounted() {
+        try {
+            return Class.forName("com.sun.management.ThreadMXBean").isInstance(ManagementFactory.getThreadMXBean());
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface Parse {
+        List<Article> run() throws Exception;
+    }
+
+    // the previous implementation: whole response into a String, then into a JSONObject tree
+    private static List<Article> treeParse(InputStream inputStream) throws IOException, JSONException {
+        StringBuilder output = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        String line = reader.readLine();
+        while (line != null) {
+            output.append(line);
+            line = reader.readLine();
+        }
+
+        List<Article> articles = new ArrayList<>();
+        JSONArray results = new JSONObject(output.toString()).getJSONObject("response").getJSONArray("results");
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject currentResult = results.getJSONObject(i);
+            JSONObject fields = currentResult.getJSONObject("fields");
+            String firstName;
+            String lastName;
+            try {
+                JSONObject tags = currentResult.getJSONArray("tags").getJSONObject(0);
+                firstName = tags.getString("firstName");
+                lastName = tags.getString("lastName");
+            } catch (JSONException e) {
+                firstName = "";
+                lastName = "";
+            }
+            articles.add(new Article(fields.getString("headline"), fields.getString("trailText"), firstName,
+                    lastName, currentResult.getString("webPublicationDate"),
+                    currentResult.getString("sectionName"), currentResult.getString("webUrl")));
+        }
+        return articles;
+    }
+
+    static byte[] readFixture(String name) throws IOException {
+        InputStream in = QueryUtilsTest.class.getClassLoader().getResourceAsStream(name);
+        assertNotNull("missing fixture " + name, in);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,350 @@
+package com.sommerengineering.news;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises the {@link RetryPolicy}, {@link CircuitBreaker} and {@link RateLimiter} around
+ * {@link QueryUtils#fetchArticleData} against a local HTTP server that fails on demand.
+ */
+public class ResilienceTest {
+
+    private static final String BODY = "{\"response\":{\"results\":["
+            + "{\"sectionName\":\"Travel\",\"webPublicationDate\":\"2018-10-06T12:00:00Z\",\"webUrl\":\"https://a\","
+            + "\"fields\":{\"headline\":\"Surf\",\"trailText\":\"Baja\"},\"tags\":[]}]}}";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private String mUrl;
+    private FakeClock mClock;
+
+    // status codes the server replies with in order, 200 once the queue is empty
+    private final Queue<Integer> mFailures = new LinkedList<>();
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    // set to send half of the body and hold the connection open until the test ends
+    private volatile boolean mStall;
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        mClock = new FakeClock();
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 1, 50, new Random(0)));
+        QueryUtils.setCircuitBreaker(new CircuitBreaker(2, 60 * 1000, mClock));
+        QueryUtils.setRateLimiter(new RateLimiter(100, 1000, mClock));
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequestCount.incrementAndGet();
+                Integer failure = mFailures.poll();
+                if (failure != null) {
+                    if (failure == 429) {
+                        exchange.getResponseHeaders().add("Retry-After", "120");
+                    }
+                    exchange.sendResponseHeaders(failure, -1);
+                } else if (mStall) {
+                    byte[] body = BODY.getBytes("UTF-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body, 0, body.length / 2);
+                    out.flush();
+                    try {
+                        mRelease.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    byte[] body = BODY.getBytes("UTF-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                }
+                exchange.close();
+            }
+        });
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.start();
+        mUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?q=surf";
+    }
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+        mServer.stop(0);
+
+        // the policies are process-wide, later test classes get the defaults again
+        QueryUtils.setRetryPolicy(null);
+        QueryUtils.setCircuitBreaker(null);
+        QueryUtils.setRateLimiter(null);
+    }
+
+    @Test
+    public void cancellation_abortsBlockedRead_withoutCountingAsFailure() {
+        mStall = true;
+        final Cancellation cancellation = new Cancellation();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cancellation.cancel();
+            }
+        }).start();
+
+        long start = System.nanoTime();
+        FeedResult result = QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL, cancellation);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        // the read timeout is 10 seconds, the parser stopped as soon as the socket was closed
+        assertEquals(FeedResult.Status.CANCELLED, result.getStatus());
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 5000);
+        assertEquals(1, mRequestCount.get());
+
+        // a request registered after cancelling is never sent, and neither counts against the API
+        assertEquals(FeedResult.Status.CANCELLED,
+                QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL, cancellation).getStatus());
+        mStall = false;
+        assertTrue(QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).isSuccessful());
+    }
+
+    @Test
+    public void rateLimiter_spacesRequestsBeyondTheBurst() {
+        RateLimiter limiter = new RateLimiter(4, 100, mClock);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, limiter.reserve());
+        }
+        assertEquals(250, limiter.reserve());
+        assertEquals(500, limiter.reserve());
+
+        // idle time earns the burst back
+        mClock.advance(2000);
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    public void dailyQuota_refusesRequestsWithoutCountingAgainstTheApi() {
+        QueryUtils.setRateLimiter(new RateLimiter(100, 1, mClock));
+        assertTrue(QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).isSuccessful());
+
+        FeedResult refused = QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL);
+        assertEquals(FeedResult.Status.RATE_LIMITED, refused.getStatus());
+        assertTrue(refused.getRetryAfterMillis() > 0);
+        assertEquals(1, mRequestCount.get());
+        assertFalse(QueryUtils.getCircuitBreaker().isOpen());
+
+        // the quota resets at midnight UTC
+        mClock.advance(refused.getRetryAfterMillis());
+        assertTrue(QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).isSuccessful());
+    }
+
+    @Test
+    public void transientServerErrors_areRetried() {
+        mFailures.add(503);
+        mFailures.add(502);
+
+        FeedResult result = QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(1, result.getArticles().size());
+        assertEquals(3, mRequestCount.get());
+    }
+
+    @Test
+    public void clientError_isNotRetried() {
+        mFailures.add(401);
+
+        FeedResult result = QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL);
+
+        assertEquals(FeedResult.Status.HTTP_ERROR, result.getStatus());
+        assertEquals(401, result.getHttpCode());
+        assertTrue(result.getArticles().isEmpty());
+        assertEquals(1, mRequestCount.get());
+    }
+
+    @Test
+    public void longRetryAfter_holdsBackRequestsAndServesCache() throws IOException {
+        ArticleCache cache = new ArticleCache(mFolder.newFolder(), 1024 * 1024, 0);
+        QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL);
+        mFailures.add(429);
+
+        // two minutes is too long to wait on the loader thread, the stale cached articles are returned
+        FeedResult limited = QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL);
+        assertEquals(FeedResult.Status.RATE_LIMITED, limited.getStatus());
+        assertEquals(120 * 1000, limited.getRetryAfterMillis());
+        assertEquals(1, limited.getArticles().size());
+        assertEquals(2, mRequestCount.get());
+
+        // one failure is below the breaker's threshold, the Retry-After alone holds back the next request
+        assertFalse(QueryUtils.getCircuitBreaker().isOpen());
+        FeedResult refused = QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL);
+        assertEquals(FeedResult.Status.RATE_LIMITED, refused.getStatus());
+        assertEquals(120 * 1000, refused.getRetryAfterMillis());
+        assertEquals(1, refused.getArticles().size());
+        assertEquals(2, mRequestCount.get());
+
+        mClock.advance(120 * 1000);
+        assertTrue(QueryUtils.fetchArticleData(mUrl, cache, FieldProjection.ALL).isSuccessful());
+        assertEquals(3, mRequestCount.get());
+    }
+
+    @Test
+    public void retryAfter_doesNotLengthenTheOpenTime() {
+        RateLimiter limiter = new RateLimiter(100, 1000, mClock);
+        QueryUtils.setRateLimiter(limiter);
+        QueryUtils.setCircuitBreaker(new CircuitBreaker(1, 1000, mClock));
+        mFailures.add(429);
+
+        assertEquals(FeedResult.Status.RATE_LIMITED,
+                QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).getStatus());
+
+        // the breaker opens for its own cool-down, the server's two minutes are kept by the rate limiter
+        assertTrue(QueryUtils.getCircuitBreaker().isOpen());
+        mClock.advance(1000);
+        assertFalse(QueryUtils.getCircuitBreaker().isOpen());
+        assertEquals(119 * 1000, limiter.getMillisUntilRetry());
+    }
+
+    @Test
+    public void cancellation_wakesTheRateLimitWait() {
+        QueryUtils.setRateLimiter(new RateLimiter(1, 1000, mClock));
+        assertTrue(QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).isSuccessful());
+        final Cancellation cancellation = new Cancellation();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cancellation.cancel();
+            }
+        }).start();
+
+        // the clock does not move, so the next slot of one request per second is a full second away
+        long start = System.nanoTime();
+        FeedResult result = QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL, cancellation);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(FeedResult.Status.CANCELLED, result.getStatus());
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 900);
+        assertEquals(1, mRequestCount.get());
+    }
+
+    @Test
+    public void circuitBreaker_opensAfterThresholdAndAllowsOneTrial() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000, mClock);
+
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertFalse(breaker.allowRequest());
+
+        // half-open, a single trial request is let through
+        mClock.advance(1000);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        // a failed trial reopens the breaker, a successful one closes it
+        breaker.recordFailure();
+        assertTrue(breaker.isOpen());
+        mClock.advance(1000);
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void halfOpenTrial_endingInClientError_releasesTheTrial() {
+        openCircuitUntilHalfOpen();
+        mFailures.add(400);
+
+        // a page past the end says nothing about the health of the API, the next request is the new trial
+        assertEquals(400, QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).getHttpCode());
+        assertTrue(QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).isSuccessful());
+        assertEquals(2, mRequestCount.get());
+    }
+
+    @Test
+    public void halfOpenTrial_cancelled_releasesTheTrial() {
+        openCircuitUntilHalfOpen();
+        Cancellation cancellation = new Cancellation();
+        cancellation.cancel();
+
+        assertEquals(FeedResult.Status.CANCELLED,
+                QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL, cancellation).getStatus());
+        assertTrue(QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).isSuccessful());
+        assertEquals(1, mRequestCount.get());
+    }
+
+    @Test
+    public void halfOpenTrial_refusedByQuota_releasesTheTrial() {
+        openCircuitUntilHalfOpen();
+        QueryUtils.setRateLimiter(new RateLimiter(100, 0, mClock));
+
+        assertEquals(FeedResult.Status.RATE_LIMITED,
+                QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).getStatus());
+        QueryUtils.setRateLimiter(new RateLimiter(100, 1000, mClock));
+        assertTrue(QueryUtils.fetchArticleData(mUrl, null, FieldProjection.ALL).isSuccessful());
+        assertEquals(1, mRequestCount.get());
+    }
+
+    @Test
+    public void backoff_isJitteredAndCapped() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 1000, new Random(42));
+        for (int attempt = 0; attempt < 10; attempt++) {
+            long delay = policy.getDelayMillis(attempt, 0);
+            assertTrue(delay >= 0);
+            assertTrue(delay <= Math.min(1000, 100L << attempt));
+        }
+        assertEquals(3000, policy.getDelayMillis(0, 3000));
+        assertFalse(policy.canWait(3000));
+    }
+
+    @Test
+    public void retryAfter_acceptsSecondsAndHttpDate() {
+        assertEquals(30 * 1000, QueryUtils.parseRetryAfter("30", 0));
+        assertEquals(5 * 1000, QueryUtils.parseRetryAfter("Thu, 01 Jan 1970 00:00:10 GMT", 5 * 1000));
+        assertEquals(0, QueryUtils.parseRetryAfter("soon", 0));
+        assertEquals(0, QueryUtils.parseRetryAfter(null, 0));
+    }
+
+    // two failures open the breaker installed by setUp, its cool-down is then let pass
+    private void openCircuitUntilHalfOpen() {
+        CircuitBreaker breaker = QueryUtils.getCircuitBreaker();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.isOpen());
+        mClock.advance(60 * 1000);
+    }
+
+}
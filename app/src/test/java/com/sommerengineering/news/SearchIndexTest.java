@@ -0,0 +1,152 @@
+package com.sommerengineering.news;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the matching of {@link SearchIndex}. Index build and query times are
+ * measured by SearchBenchmark in the benchmark module.
+ */
+public class SearchIndexTest {
+
+    private static final String[] WORDS = {"surf", "swell", "baja", "coast", "storm", "tide", "reef", "wave",
+            "board", "beach", "wind", "season", "mexico", "pacific", "report", "forecast", "travel", "island",
+            "harbour", "current", "sailing", "fishing", "whale", "lagoon", "desert", "camping", "road", "town"};
+
+    private static final String[] SECTIONS = {"Travel", "Sport", "World news", "Environment", "Life and style"};
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void search_matchesEveryFieldByPrefix() {
+        SearchIndex index = new SearchIndex();
+        index.add(new Article("Big swell hits Baja", "<strong>Surfers</strong> head south", "tim", "adams",
+                "2018-10-06T12:00:00Z", "Travel", "https://a"));
+        index.add(new Article("Storm season", "Harbours close early", "", "", "2018-10-07T12:00:00Z", "World news",
+                "https://b"));
+
+        assertEquals(Arrays.asList("https://a"), urls(index.search("baja", 10)));
+        assertEquals(Arrays.asList("https://a"), urls(index.search("SURF", 10)));
+        assertEquals(Arrays.asList("https://a"), urls(index.search("adam", 10)));
+        assertEquals(Arrays.asList("https://b"), urls(index.search("harbour", 10)));
+        assertEquals(Arrays.asList("https://b"), urls(index.search("news", 10)));
+        assertEquals(Arrays.asList("https://b", "https://a"), urls(index.search("s", 10)));
+
+        // markup is not indexed
+        assertTrue(index.search("strong", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void search_requiresEveryTerm() {
+        SearchIndex index = new SearchIndex();
+        index.add(new Article("Baja surf report", "", "", "", "2018-10-06T12:00:00Z", "Travel", "https://a"));
+        index.add(new Article("Baja road trip", "", "", "", "2018-10-07T12:00:00Z", "Travel", "https://b"));
+        index.add(new Article("Surf in Cornwall", "", "", "", "2018-10-08T12:00:00Z", "Travel", "https://c"));
+
+        assertEquals(Arrays.asList("https://b", "https://a"), urls(index.search("baja", 10)));
+        assertEquals(Arrays.asList("https://a"), urls(index.search("baja su", 10)));
+        assertEquals(Arrays.asList("https://c"), urls(index.search("surf, cornwall!", 10)));
+        assertTrue(index.search("baja cornwall", 10).isEmpty());
+        assertEquals(1, index.search("travel", 1).size());
+    }
+
+    @Test
+    public void replacedAndRemovedArticles_areNotFound() {
+        SearchIndex index = new SearchIndex();
+        index.add(new Article("Baja surf report", "", "", "", "2018-10-06T12:00:00Z", "Travel", "https://a"));
+        index.add(new Article("Storm warning", "", "", "", "2018-10-06T12:00:00Z", "Travel", "https://a"));
+        assertTrue(index.search("baja", 10).isEmpty());
+        assertEquals(1, index.search("storm", 10).size());
+
+        index.remove("https://a");
+        assertTrue(index.search("storm", 10).isEmpty());
+        assertEquals(0, index.size());
+
+        // enough replacements to compact the postings
+        for (int i = 0; i < 3000; i++) {
+            index.add(new Article("Tide table " + i, "", "", "", "2018-10-06T12:00:00Z", "Travel", "https://t"));
+        }
+        assertEquals(1, index.size());
+        assertEquals(Arrays.asList("https://t"), urls(index.search("tide 2999", 10)));
+        assertTrue(index.search("tide 2998", 10).isEmpty());
+    }
+
+    @Test
+    public void store_searchesLoadedUpsertedAndEvictedArticles() throws IOException {
+        File file = new File(mFolder.getRoot(), "articles.store");
+        ArticleStore store = new ArticleStore(file, 2);
+        store.upsert("surf", Arrays.asList(
+                new Article("Baja surf report", "", "", "", "2018-10-05T12:00:00Z", "Travel", "https://a"),
+                new Article("Baja road trip", "", "", "", "2018-10-06T12:00:00Z", "Travel", "https://b")));
+        store.close();
+
+        store = new ArticleStore(file, 2);
+        assertEquals(Arrays.asList("https://b", "https://a"), urls(store.search("baja", 10)));
+
+        // the oldest article is evicted to make room
+        store.upsert("surf", Arrays.asList(
+                new Article("Baja tide table", "", "", "", "2018-10-07T12:00:00Z", "Travel", "https://c")));
+        assertEquals(Arrays.asList("https://c", "https://b"), urls(store.search("baja", 10)));
+        store.close();
+    }
+
+    @Test
+    public void largeIndex_findsEveryQuery() {
+        List<Article> articles = generate(10000, new Random(10000));
+        SearchIndex index = new SearchIndex();
+        for (Article article : articles) {
+            index.add(article);
+        }
+
+        for (String query : new String[] {"baja", "sw", "surf rep", "storm coast pac", "mexico whale lagoon"}) {
+            assertFalse(query, index.search(query, 100).isEmpty());
+        }
+        assertEquals(10000, index.size());
+    }
+
+    // articles of random words, a few rare words make the vocabulary grow with the article count
+    private static List<Article> generate(int count, Random random) {
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = words(random, 6) + " " + Integer.toString(i, 36);
+            String trailText = "<p>" + words(random, 20) + "</p>";
+            String date = String.format("2018-%02d-%02dT%02d:00:00Z", 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24));
+            articles.add(new Article(title, trailText, WORDS[random.nextInt(WORDS.length)], "adams", date,
+                    SECTIONS[random.nextInt(SECTIONS.length)], "https://www.theguardian.com/" + i));
+        }
+        return articles;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link SingleFlight} shares one fetch between concurrent callers
+ * of equivalent urls, and that cancelling a caller only aborts the fetch once
+ * nobody else is waiting on it.
+ */
+public class SingleFlightTest {
+
+    private static final String URL = "https://content.guardianapis.com/search?q=surf&page=1&api-key=a";
+    private static final String SAME_QUERY = "https://content.guardianapis.com/search?api-key=b&page=1&q=surf";
+
+    private final SingleFlight mSingleFlight = new SingleFlight();
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+    private final AtomicInteger mFetchCount = new AtomicInteger();
+    private final FeedResult mResult = FeedResult.ok(null);
+
+    // blocks until released, or until the flight is cancelled
+    private final SingleFlight.Fetch mFetch = new SingleFlight.Fetch() {
+        @Override
+        public FeedResult run(Cancellation cancellation) {
+            mFetchCount.incrementAndGet();
+            final CountDownLatch aborted = new CountDownLatch(1);
+            cancellation.register(new Closeable() {
+                @Override
+                public void close() {
+                    aborted.countDown();
+                }
+            });
+            try {
+                while (mRelease.getCount() > 0 && aborted.getCount() > 0) {
+                    Thread.sleep(5);
+                }
+            } catch (InterruptedException e) {
+                return FeedResult.cancelled();
+            }
+            return cancellation.isCancelled() ? FeedResult.cancelled() : mResult;
+        }
+    };
+
+    @Test
+    public void concurrentCallers_shareOneFetch() throws Exception {
+        List<Caller> callers = new ArrayList<>();
+        callers.add(new Caller(URL, null));
+        awaitInFlight();
+        for (int i = 0; i < 3; i++) {
+            callers.add(new Caller(SAME_QUERY, null));
+        }
+        awaitShared(3);
+
+        mRelease.countDown();
+        for (Caller caller : callers) {
+            assertSame(mResult, caller.get());
+        }
+        assertEquals(1, mFetchCount.get());
+        assertEquals(0, mSingleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void cancelledCaller_leavesSharedFetchRunning() throws Exception {
+        Caller first = new Caller(URL, null);
+        awaitInFlight();
+        Cancellation cancellation = new Cancellation();
+        Caller second = new Caller(SAME_QUERY, cancellation);
+        awaitShared(1);
+
+        cancellation.cancel();
+        assertEquals(FeedResult.Status.CANCELLED, second.get().getStatus());
+
+        mRelease.countDown();
+        assertSame(mResult, first.get());
+    }
+
+    @Test
+    public void lastCallerCancelled_abortsFetch() throws Exception {
+        Cancellation cancellation = new Cancellation();
+        Caller only = new Caller(URL, cancellation);
+        awaitInFlight();
+
+        cancellation.cancel();
+
+        assertEquals(FeedResult.Status.CANCELLED, only.get().getStatus());
+        assertEquals(0, mSingleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void callAfterLastCallerCancelled_startsNewFetch() throws Exception {
+
+        // a fetch that notices the abort only once released, so the abandoned flight is still unwinding
+        SingleFlight.Fetch slowToAbort = new SingleFlight.Fetch() {
+            @Override
+            public FeedResult run(Cancellation cancellation) {
+                mFetchCount.incrementAndGet();
+                try {
+                    mRelease.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return FeedResult.cancelled();
+                }
+                return cancellation.isCancelled() ? FeedResult.cancelled() : mResult;
+            }
+        };
+        SingleFlight.Fetch immediate = new SingleFlight.Fetch() {
+            @Override
+            public FeedResult run(Cancellation cancellation) {
+                mFetchCount.incrementAndGet();
+                return mResult;
+            }
+        };
+        Cancellation cancellation = new Cancellation();
+        Caller cancelled = new Caller(URL, cancellation, slowToAbort);
+        awaitInFlight();
+        cancellation.cancel();
+
+        Caller rerun = new Caller(SAME_QUERY, null, immediate);
+
+        assertSame(mResult, rerun.get());
+        assertEquals(2, mFetchCount.get());
+        assertEquals(0, mSingleFlight.getSharedCount());
+        mRelease.countDown();
+        assertEquals(FeedResult.Status.CANCELLED, cancelled.get().getStatus());
+        assertEquals(0, mSingleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void laterCall_startsNewFetch() {
+        mRelease.countDown();
+        mSingleFlight.run(URL, null, mFetch);
+        mSingleFlight.run(URL, null, mFetch);
+        assertEquals(2, mFetchCount.get());
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        while (mSingleFlight.getInFlightCount() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitShared(long count) throws InterruptedException {
+        while (mSingleFlight.getSharedCount() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    // runs one call on its own thread
+    private class Caller extends Thread {
+
+        private final String mUrl;
+        private final Cancellation mCancellation;
+        private final SingleFlight.Fetch mCallerFetch;
+        private final CountDownLatch mDone = new CountDownLatch(1);
+        private volatile FeedResult mCallerResult;
+
+        Caller(String url, Cancellation cancellation) {
+            this(url, cancellation, mFetch);
+        }
+
+        Caller(String url, Cancellation cancellation, SingleFlight.Fetch fetch) {
+            mUrl = url;
+            mCancellation = cancellation;
+            mCallerFetch = fetch;
+            start();
+        }
+
+        @Override
+        public void run() {
+            mCallerResult = mSingleFlight.run(mUrl, mCancellation, mCallerFetch);
+            mDone.countDown();
+        }
+
+        FeedResult get() throws InterruptedException {
+            assertTrue("call did not return", mDone.await(5, TimeUnit.SECONDS));
+            return mCallerResult;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the scheduling rules of the background sync against a fake clock.
+ */
+public class SyncPolicyTest {
+
+    private static final long MIN_INTERVAL = 15 * 60 * 1000;
+
+    private final FakeClock mClock = new FakeClock();
+
+    @Test
+    public void triggers_areCoalesced() {
+        SyncPolicy policy = new SyncPolicy(mClock, MIN_INTERVAL, 4, false, false, 0);
+
+        // a trigger while a sync runs is dropped
+        assertTrue(policy.tryStart(false, false));
+        assertFalse(policy.tryStart(false, false));
+        policy.finish(true);
+
+        // and so is one before the minimum interval has passed
+        mClock.advance(MIN_INTERVAL - 1);
+        assertEquals(1, policy.getDelayUntilDueMillis());
+        assertFalse(policy.tryStart(false, false));
+        mClock.advance(1);
+        assertTrue(policy.tryStart(false, false));
+    }
+
+    @Test
+    public void failedSync_isNotRecorded() {
+        SyncPolicy policy = new SyncPolicy(mClock, MIN_INTERVAL, 4, false, false, 0);
+        assertTrue(policy.tryStart(false, false));
+        policy.finish(false);
+
+        assertEquals(0, policy.getLastSyncAt());
+        assertTrue(policy.tryStart(false, false));
+    }
+
+    @Test
+    public void lastSyncFromAnEarlierProcess_isRespected() {
+        SyncPolicy policy = new SyncPolicy(mClock, MIN_INTERVAL, 4, false, false, mClock.currentTimeMillis());
+        assertFalse(policy.tryStart(false, false));
+        mClock.advance(MIN_INTERVAL);
+        assertTrue(policy.tryStart(false, false));
+    }
+
+    @Test
+    public void changedConditions_keepTheRunningSync() {
+        SyncPolicy policy = new SyncPolicy(mClock, MIN_INTERVAL, 4, false, false, 0);
+        assertTrue(policy.tryStart(false, false));
+
+        policy.setConstraints(true, false);
+
+        // the sync that is running still coalesces triggers, and the new conditions apply to the next one
+        assertFalse(policy.tryStart(true, false));
+        policy.finish(true);
+        mClock.advance(MIN_INTERVAL);
+        assertFalse(policy.tryStart(false, false));
+        assertTrue(policy.tryStart(true, false));
+    }
+
+    @Test
+    public void configuredConditions_mustHold() {
+        SyncPolicy wifiOnly = new SyncPolicy(mClock, MIN_INTERVAL, 4, true, false, 0);
+        assertFalse(wifiOnly.tryStart(false, true));
+        assertTrue(wifiOnly.tryStart(true, false));
+
+        SyncPolicy chargingOnly = new SyncPolicy(mClock, MIN_INTERVAL, 4, false, true, 0);
+        assertFalse(chargingOnly.constraintsMet(true, false));
+        assertTrue(chargingOnly.constraintsMet(false, true));
+    }
+
+    @Test
+    public void requests_areBatched() {
+        SyncPolicy policy = new SyncPolicy(mClock, MIN_INTERVAL, 2, false, false, 0);
+        List<List<String>> batches = policy.batch(Arrays.asList("a", "b", "c", "d", "e"));
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e")), batches);
+        assertTrue(policy.batch(Arrays.<String>asList()).isEmpty());
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.sommerengineering.news;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the plain text {@link TrailTextRenderer} shows in a row until its
+ * styled trail text has been rendered.
+ */
+public class TrailTextRendererTest {
+
+    @Test
+    public void plainText_dropsTags() {
+        assertEquals("Swell arriving on the coast",
+                TrailTextRenderer.plainText("<strong>Swell</strong> arriving on the <a href=\"x\">coast</a>"));
+    }
+
+    @Test
+    public void plainText_decodesCommonEntities() {
+        assertEquals("Fish & chips, \"<cheap>\" and\u00a0cheerful",
+                TrailTextRenderer.plainText("Fish &amp; chips, &quot;&lt;cheap&gt;&quot; and&nbsp;cheerful"));
+    }
+
+    @Test
+    public void plainText_keepsUnknownEntities() {
+        assertEquals("AT&T &hellip;", TrailTextRenderer.plainText("AT&T &hellip;"));
+    }
+
+    @Test
+    public void plainText_withoutMarkup_isReturnedAsIs() {
+        String plain = "Low tide at noon";
+        assertSame(plain, TrailTextRenderer.plainText(plain));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.sommerengineering.news;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// restoring articles from their binary form against parsing the raw Guardian JSON they came from
+// the encoded and JSON sizes of the same lists are printed by CodecSizes, ./gradlew :benchmark:codecSizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"10", "50", "200", "1000"})
+    public int resultCount;
+
+    private byte[] mJson;
+    private List<Article> mArticles;
+    private byte[] mEncoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mJson = Fixtures.response(Fixtures.PROJECTED, resultCount);
+        mArticles = QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(mJson), FieldProjection.ALL);
+        mEncoded = ArticleCodec.encode(mArticles);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ArticleCodec.encode(mArticles);
+    }
+
+    @Benchmark
+    public List<Article> decode() throws IOException {
+        return ArticleCodec.decode(mEncoded);
+    }
+
+    // what a cache hit cost when the cache held the raw response
+    @Benchmark
+    public List<Article> parseJson() throws IOException {
+        return QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(mJson), FieldProjection.ALL);
+    }
+
+}
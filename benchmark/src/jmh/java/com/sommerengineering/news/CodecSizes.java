@@ -0,0 +1,32 @@
+package com.sommerengineering.news;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+// the sizes behind CodecBenchmark: the raw Guardian JSON of each result count against the encoded articles
+// parsed from it, printed as a table by
+//     ./gradlew :benchmark:codecSizes
+public final class CodecSizes {
+
+    // the result counts of CodecBenchmark
+    private static final int[] RESULT_COUNTS = {10, 50, 200, 1000};
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private CodecSizes() {}
+
+    public static void main(String[] args) throws IOException {
+        System.out.println(String.format(Locale.US, "%8s %12s %14s %8s", "results", "json bytes", "encoded bytes",
+                "encoded"));
+        for (int resultCount : RESULT_COUNTS) {
+            byte[] json = Fixtures.response(Fixtures.PROJECTED, resultCount);
+            List<Article> articles =
+                    QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(json), FieldProjection.ALL);
+            byte[] encoded = ArticleCodec.encode(articles);
+            System.out.println(String.format(Locale.US, "%8d %12d %14d %7.1f%%", resultCount, json.length,
+                    encoded.length, 100.0 * encoded.length / json.length));
+        }
+    }
+
+}
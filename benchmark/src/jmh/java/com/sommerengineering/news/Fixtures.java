@@ -0,0 +1,89 @@
+package com.sommerengineering.news;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+// recorded Guardian search responses, resized to the number of results a benchmark needs
+final class Fixtures {
+
+    // every field, as requested before the feed projection
+    static final String FULL = "guardian_search_large.json";
+
+    // the fields of the feed projection only
+    static final String PROJECTED = "guardian_search_projected.json";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // constructor is deliberately empty as no objects of this class will ever exist
+    private Fixtures() {}
+
+    // the recorded response with its results cut or repeated to the given count
+    // a repeated result gets a distinct id and url so it is not taken for the same article
+    static byte[] response(String name, int resultCount) throws IOException {
+        JsonObject root = read(name);
+        JsonObject response = root.getAsJsonObject("response");
+        JsonArray recorded = response.getAsJsonArray("results");
+
+        JsonArray results = new JsonArray();
+        for (int i = 0; i < resultCount; i++) {
+            JsonObject result = recorded.get(i % recorded.size()).getAsJsonObject().deepCopy();
+            int copy = i / recorded.size();
+            if (copy > 0) {
+                result.addProperty("id", result.get("id").getAsString() + "-" + copy);
+                result.addProperty("webUrl", result.get("webUrl").getAsString() + "-" + copy);
+            }
+            results.add(result);
+        }
+        response.add("results", results);
+        response.addProperty("total", resultCount);
+        response.addProperty("pageSize", resultCount);
+        return root.toString().getBytes(UTF_8);
+    }
+
+    // the parsed articles of the recorded response
+    static List<Article> articles(String name) throws IOException {
+        InputStream inputStream = open(name);
+        try {
+            return QueryUtils.extractArticlesFromStream(inputStream, FieldProjection.ALL);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    // the publication timestamps of the recorded results, exactly as the API returns them
+    static List<String> timestamps(String name) throws IOException {
+        List<String> timestamps = new ArrayList<>();
+        for (JsonElement result : read(name).getAsJsonObject("response").getAsJsonArray("results")) {
+            timestamps.add(result.getAsJsonObject().get("webPublicationDate").getAsString());
+        }
+        return timestamps;
+    }
+
+    private static InputStream open(String name) throws IOException {
+        InputStream inputStream = Fixtures.class.getClassLoader().getResourceAsStream(name);
+        if (inputStream == null) {
+            throw new IOException("Missing fixture " + name);
+        }
+        return inputStream;
+    }
+
+    private static JsonObject read(String name) throws IOException {
+        Reader reader = new InputStreamReader(open(name), UTF_8);
+        try {
+            return new JsonParser().parse(reader).getAsJsonObject();
+        } finally {
+            reader.close();
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.sommerengineering.news;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the display strings computed once per article while it is parsed
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+
+    private String[] mTimestamps;
+    private String[] mFirstNames;
+    private String[] mLastNames;
+    private int mIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> timestamps = Fixtures.timestamps(Fixtures.FULL);
+        mTimestamps = timestamps.toArray(new String[timestamps.size()]);
+
+        // the recorded names are lower case, and some articles have no author
+        List<Article> articles = Fixtures.articles(Fixtures.FULL);
+        mFirstNames = new String[articles.size()];
+        mLastNames = new String[articles.size()];
+        for (int i = 0; i < articles.size(); i++) {
+            mFirstNames[i] = articles.get(i).getFirstName();
+            mLastNames[i] = articles.get(i).getLastName();
+        }
+    }
+
+    @Benchmark
+    public String formatDate() {
+        mIndex = (mIndex + 1) % mTimestamps.length;
+        return ArticleFormatter.formatDate(mTimestamps[mIndex]);
+    }
+
+    @Benchmark
+    public String formatAuthor() {
+        mIndex = (mIndex + 1) % mFirstNames.length;
+        return ArticleFormatter.formatAuthor(mFirstNames[mIndex], mLastNames[mIndex]);
+    }
+
+}
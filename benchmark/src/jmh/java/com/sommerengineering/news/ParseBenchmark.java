@@ -0,0 +1,55 @@
+package com.sommerengineering.news;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// streaming a Guardian search response into articles, the work done for every page on the loader thread
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    // results in the response, from a default page to a large prefetch
+    @Param({"10", "50", "200", "1000"})
+    public int resultCount;
+
+    private byte[] mFullResponse;
+    private byte[] mProjectedResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        mFullResponse = Fixtures.response(Fixtures.FULL, resultCount);
+        mProjectedResponse = Fixtures.response(Fixtures.PROJECTED, resultCount);
+    }
+
+    // the response to the previous query, with every field read
+    @Benchmark
+    public List<Article> extractAllFields() throws IOException {
+        return QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(mFullResponse), FieldProjection.ALL);
+    }
+
+    // the response to the query the feed makes, with only its fields read
+    @Benchmark
+    public List<Article> extractFeedProjection() throws IOException {
+        return QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(mProjectedResponse),
+                FeedSettings.FEED_PROJECTION);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.sommerengineering.news;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// building the search index when the store is opened, and the query run on every keystroke
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final String[] WORDS = {"surf", "swell", "baja", "coast", "storm", "tide", "reef", "wave",
+            "board", "beach", "wind", "season", "mexico", "pacific", "report", "forecast", "travel", "island",
+            "harbour", "current", "sailing", "fishing", "whale", "lagoon", "desert", "camping", "road", "town"};
+
+    private static final String[] SECTIONS = {"Travel", "Sport", "World news", "Environment", "Life and style"};
+
+    // a single word, a short prefix, and queries of several words that narrow the matches
+    private static final String[] QUERIES = {"baja", "sw", "surf rep", "storm coast pac", "mexico whale lagoon"};
+
+    // stored articles, from a full store to well beyond it
+    @Param({"10000", "100000"})
+    public int articleCount;
+
+    private List<Article> mArticles;
+    private SearchIndex mIndex;
+    private int mQuery;
+
+    @Setup
+    public void setUp() {
+        mArticles = generate(articleCount, new Random(articleCount));
+        mIndex = build();
+    }
+
+    @Benchmark
+    public SearchIndex build() {
+        SearchIndex index = new SearchIndex();
+        for (Article article : mArticles) {
+            index.add(article);
+        }
+        return index;
+    }
+
+    @Benchmark
+    public List<Article> search() {
+        mQuery = (mQuery + 1) % QUERIES.length;
+        return mIndex.search(QUERIES[mQuery], 100);
+    }
+
+    // articles of random words, a few rare words make the vocabulary grow with the article count
+    private static List<Article> generate(int count, Random random) {
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = words(random, 6) + " " + Integer.toString(i, 36);
+            String trailText = "<p>" + words(random, 20) + "</p>";
+            String date = String.format("2018-%02d-%02dT%02d:00:00Z", 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24));
+            articles.add(new Article(title, trailText, WORDS[random.nextInt(WORDS.length)], "adams", date,
+                    SECTIONS[random.nextInt(SECTIONS.length)], "https://www.theguardian.com/" + i));
+        }
+        return articles;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+}